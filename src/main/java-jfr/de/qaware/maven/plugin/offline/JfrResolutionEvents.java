@@ -0,0 +1,122 @@
+package de.qaware.maven.plugin.offline;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * {@link ResolutionEvents} emitted as Java Flight Recorder events.
+ * <p>
+ * This class must only be loaded through {@link ResolutionEvents#create(org.apache.maven.plugin.logging.Log)}, since it fails to load on JVMs without JFR.
+ */
+class JfrResolutionEvents extends ResolutionEvents {
+
+    private static final String CATEGORY = "Go Offline Maven Plugin";
+
+    JfrResolutionEvents() {
+        // Noop
+    }
+
+    @Override
+    Object beginCollection() {
+        CollectionEvent event = new CollectionEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endCollection(Object collection, String kind, String coordinates, int nodeCount, boolean fromIndex, boolean failed) {
+        CollectionEvent event = (CollectionEvent) collection;
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.coordinates = coordinates;
+            event.nodeCount = nodeCount;
+            event.fromIndex = fromIndex;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    @Override
+    Object beginDownloadBatch() {
+        DownloadBatchEvent event = new DownloadBatchEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    void endDownloadBatch(Object batch, int requestCount, int failedCount) {
+        DownloadBatchEvent event = (DownloadBatchEvent) batch;
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestCount = requestCount;
+            event.failedCount = failedCount;
+            event.commit();
+        }
+    }
+
+    @Override
+    void requestFailed(String coordinates, ErrorCause cause, String message) {
+        RequestFailedEvent event = new RequestFailedEvent();
+        if (event.shouldCommit()) {
+            event.coordinates = coordinates;
+            event.cause = cause.name();
+            event.message = message;
+            event.commit();
+        }
+    }
+
+    @Name("de.qaware.maven.plugin.offline.Collection")
+    @Label("Dependency Collection")
+    @Description("Collection of the dependency tree of a project, plugin or dynamic dependency")
+    @Category(CATEGORY)
+    static final class CollectionEvent extends Event {
+
+        @Label("Kind")
+        String kind;
+
+        @Label("Coordinates")
+        String coordinates;
+
+        @Label("Nodes")
+        int nodeCount;
+
+        @Label("From Descriptor Index")
+        boolean fromIndex;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("de.qaware.maven.plugin.offline.DownloadBatch")
+    @Label("Download Batch")
+    @Description("Download of a batch of artifacts from the project and plugin repositories")
+    @Category(CATEGORY)
+    static final class DownloadBatchEvent extends Event {
+
+        @Label("Requests")
+        int requestCount;
+
+        @Label("Failed Requests")
+        int failedCount;
+    }
+
+    @Name("de.qaware.maven.plugin.offline.RequestFailed")
+    @Label("Request Failed")
+    @Description("A dependency collection or artifact request that failed")
+    @Category(CATEGORY)
+    static final class RequestFailedEvent extends Event {
+
+        @Label("Coordinates")
+        String coordinates;
+
+        @Label("Cause")
+        String cause;
+
+        @Label("Message")
+        String message;
+    }
+}
@@ -0,0 +1,191 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Adjusts the number of parallel downloads to the observed behaviour of the remote repositories.
+ * <p>
+ * Downloads are split into waves. After each wave the controller adjusts the concurrency of each repository that has been used
+ * in the wave, following an additive increase, multiplicative decrease scheme:
+ * <ul>
+ * <li>If the repository throttled requests (HTTP 429) or more than 10% of the requests failed, the concurrency is halved.</li>
+ * <li>If the latency rose by more than 50% without the throughput rising, the concurrency is kept.</li>
+ * <li>Otherwise the concurrency is increased by one.</li>
+ * </ul>
+ * The concurrency is tracked per repository, but it is applied globally: The resolver reads the number of download threads from a single
+ * session property that applies to all repositories. So the concurrency of the next wave is the lowest concurrency of all repositories
+ * used in the last wave, no repository gets more parallel requests than it can handle, at the cost of slowing down the other repositories
+ * if one of them throttles. The final concurrency of each repository is stored in the local repository and used as the starting point
+ * of the next run.
+ */
+class AdaptiveConcurrencyController {
+
+    private static final double MAX_ERROR_RATE = 0.1;
+    private static final double MAX_LATENCY_INCREASE = 1.5;
+    private static final String HINT_DIRECTORY = ".go-offline";
+    private static final String HINT_FILE = "download-concurrency.properties";
+
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final File hintFile;
+    private final Log log;
+    private final Properties hints = new Properties();
+    private final Map<String, RepositoryState> repositories = new HashMap<>();
+    private int concurrency;
+
+    /**
+     * Create a new controller and load the concurrency hints of the previous run.
+     *
+     * @param minConcurrency     the lower bound of the concurrency.
+     * @param maxConcurrency     the upper bound of the concurrency.
+     * @param initialConcurrency the concurrency to start with if there is no hint from a previous run.
+     * @param repositoryUrls     the URLs of the repositories that will be used.
+     * @param localRepository    the base directory of the local repository the hints are stored in.
+     * @param log                used to log concurrency changes.
+     */
+    AdaptiveConcurrencyController(int minConcurrency, int maxConcurrency, int initialConcurrency, Collection<String> repositoryUrls, File localRepository, Log log) {
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.hintFile = new File(new File(localRepository, HINT_DIRECTORY), HINT_FILE);
+        this.log = log;
+        loadHints(hints);
+        int startConcurrency = Integer.MAX_VALUE;
+        for (String repositoryUrl : repositoryUrls) {
+            Integer hint = getHint(repositoryUrl);
+            if (hint != null) {
+                startConcurrency = Math.min(startConcurrency, hint);
+            }
+        }
+        this.concurrency = clamp(startConcurrency == Integer.MAX_VALUE ? initialConcurrency : startConcurrency);
+        log.debug("Starting downloads with concurrency " + concurrency);
+    }
+
+    /**
+     * Returns the concurrency to use for all repositories in the next wave.
+     *
+     * @return the concurrency to use for the next wave.
+     */
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Adjust the concurrency based on the measurements of the last wave.
+     *
+     * @param statistics    the measurements per repository URL.
+     * @param elapsedMillis the duration of the wave.
+     */
+    void update(Map<String, ThroughputTransferListener.TransferStatistics> statistics, long elapsedMillis) {
+        int nextConcurrency = Integer.MAX_VALUE;
+        for (Map.Entry<String, ThroughputTransferListener.TransferStatistics> entry : statistics.entrySet()) {
+            RepositoryState state = repositories.get(entry.getKey());
+            if (state == null) {
+                Integer hint = getHint(entry.getKey());
+                state = new RepositoryState(hint == null ? concurrency : clamp(hint));
+                repositories.put(entry.getKey(), state);
+            }
+            state.update(entry.getValue(), Math.max(1, elapsedMillis));
+            nextConcurrency = Math.min(nextConcurrency, state.concurrency);
+        }
+        if (nextConcurrency != Integer.MAX_VALUE && nextConcurrency != concurrency) {
+            log.debug("Changing download concurrency from " + concurrency + " to " + nextConcurrency);
+            concurrency = nextConcurrency;
+        }
+    }
+
+    /**
+     * Store the concurrency of each repository as hint for the next run.
+     */
+    void saveHints() {
+        if (repositories.isEmpty()) {
+            return;
+        }
+        try {
+            Files.createDirectories(hintFile.getParentFile().toPath());
+            // Merge with hints written by concurrent builds
+            Properties merged = new Properties();
+            loadHints(merged);
+            for (Map.Entry<String, RepositoryState> repository : repositories.entrySet()) {
+                merged.setProperty(repository.getKey(), String.valueOf(repository.getValue().concurrency));
+            }
+            File tempFile = File.createTempFile(HINT_FILE, ".tmp", hintFile.getParentFile());
+            try {
+                try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+                    merged.store(out, "Download concurrency per repository, written by the go-offline-maven-plugin");
+                }
+                Files.move(tempFile.toPath(), hintFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+        } catch (IOException e) {
+            log.warn("Could not store download concurrency in " + hintFile + ": " + e.getMessage());
+        }
+    }
+
+    private void loadHints(Properties properties) {
+        if (!hintFile.isFile()) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(hintFile.toPath())) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.debug("Could not read download concurrency from " + hintFile, e);
+        }
+    }
+
+    private Integer getHint(String repositoryUrl) {
+        String hint = hints.getProperty(repositoryUrl);
+        if (hint == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(hint.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(minConcurrency, Math.min(maxConcurrency, value));
+    }
+
+    private final class RepositoryState {
+
+        private int concurrency;
+        private double lastThroughput;
+        private double lastLatency;
+
+        RepositoryState(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        void update(ThroughputTransferListener.TransferStatistics statistics, long elapsedMillis) {
+            double throughput = (double) statistics.getBytes() / elapsedMillis;
+            double latency = statistics.getAverageLatency();
+            if (statistics.getThrottled() > 0 || statistics.getErrorRate() > MAX_ERROR_RATE) {
+                concurrency = clamp(concurrency / 2);
+            } else if (statistics.getSuccesses() > 0 && lastLatency > 0 && latency > lastLatency * MAX_LATENCY_INCREASE && throughput <= lastThroughput) {
+                // The repository is saturated, more parallel requests would only queue up. Keep the concurrency and compare
+                // the next wave against this one, so the controller probes for more capacity again once the latency is stable.
+                log.debug("Latency rose without higher throughput, keeping download concurrency " + concurrency);
+            } else {
+                concurrency = clamp(concurrency + 1);
+            }
+            if (statistics.getSuccesses() > 0) {
+                lastThroughput = throughput;
+                lastLatency = latency;
+            }
+        }
+    }
+}
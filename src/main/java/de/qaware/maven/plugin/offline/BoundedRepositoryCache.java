@@ -0,0 +1,164 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RepositoryCache} with a bounded number of entries, used instead of the unbounded {@link org.eclipse.aether.DefaultRepositoryCache}.
+ * <p>
+ * The entries are distributed over several segments by the hash of their key. Each segment is a LRU map guarded by its own lock,
+ * so concurrent resolver threads only contend if they access the same segment. If a segment is full, its least recently used entry is evicted.
+ * <p>
+ * Entries with a String key are pinned and never evicted. The resolver uses those to store its shared data pools (e.g. the pool of artifact
+ * descriptors). Evicting a pool would drop all of its content at once. Pinned entries do not count towards the maximum number of entries,
+ * so the memory held by the pools is not limited by this cache at all; the pools only hold their entries as long as the resolver references
+ * them. Lookups of pinned entries are counted separately.
+ */
+public class BoundedRepositoryCache implements RepositoryCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    /**
+     * The minimum number of evictable entries of a cache, at least one entry per segment.
+     */
+    public static final int MIN_SIZE = SEGMENT_COUNT;
+
+    private final Segment[] segments;
+    private final Map<Object, Object> pinned = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong pinnedHits = new AtomicLong();
+    private final AtomicLong pinnedMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxEntries the maximum number of evictable entries held by the cache, at least {@link #MIN_SIZE}.
+     */
+    public BoundedRepositoryCache(int maxEntries) {
+        if (maxEntries < MIN_SIZE) {
+            throw new IllegalArgumentException("maxEntries must be at least " + MIN_SIZE + " but was " + maxEntries);
+        }
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(maxEntries / SEGMENT_COUNT);
+        }
+    }
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        put(key, data, key instanceof String);
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        return get(key, key instanceof String);
+    }
+
+    /**
+     * Store an entry in the cache.
+     *
+     * @param key    the key of the entry.
+     * @param data   the data of the entry, may be null to remove the entry.
+     * @param pinned true if the entry must never be evicted.
+     */
+    void put(Object key, Object data, boolean pinned) {
+        if (pinned) {
+            if (data == null) {
+                this.pinned.remove(key);
+            } else {
+                this.pinned.put(key, data);
+            }
+            return;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (data == null) {
+                segment.remove(key);
+            } else {
+                segment.put(key, data);
+            }
+        }
+    }
+
+    /**
+     * Look up an entry in the cache.
+     *
+     * @param key    the key of the entry.
+     * @param pinned true if the entry has been stored as a pinned entry.
+     * @return the data of the entry or null if the entry is not present.
+     */
+    Object get(Object key, boolean pinned) {
+        if (pinned) {
+            Object data = this.pinned.get(key);
+            count(data, pinnedHits, pinnedMisses);
+            return data;
+        }
+        Object data;
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            data = segment.get(key);
+        }
+        count(data, hits, misses);
+        return data;
+    }
+
+    private static void count(Object data, AtomicLong hits, AtomicLong misses) {
+        if (data == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write the hit, miss and eviction counters to the log. Lookups of pinned entries are reported separately.
+     *
+     * @param log  the log to write to.
+     * @param name the name of the cache used in the log message.
+     */
+    public void logStatistics(Log log, String name) {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        log.info(name + " repository cache: " + hits.get() + " hits, " + misses.get() + " misses, " + evictions.get() + " evictions, " + size + " entries, "
+                + pinned.size() + " pinned entries with " + pinnedHits.get() + " hits and " + pinnedMisses.get() + " misses");
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private class Segment extends LinkedHashMap<Object, Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
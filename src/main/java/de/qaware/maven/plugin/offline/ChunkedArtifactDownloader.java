@@ -0,0 +1,618 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.AuthenticationContext;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+
+import javax.net.ssl.SSLContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Downloads large artifacts in parallel chunks using HTTP range requests.
+ * <p>
+ * The chunks are written with positional writes into a preallocated {@code .chunked} file next to the target file. Completed chunks
+ * are recorded in a {@code .chunked.state} file, so an interrupted download continues with the missing chunks in the next run and a
+ * dropped connection only repeats the rest of the current chunk. The names differ from the {@code .part} files of the resolver, so the
+ * regular download of the same artifact does not interfere. The file is verified against the SHA-1 (or MD5) checksum of the repository
+ * before it is moved to the target location.
+ * <p>
+ * The connections are opened with {@link HttpURLConnection} instead of the transport of the resolver, which does not support range
+ * requests. The HTTP headers ({@code httpHeaders} of the server in the settings), user agent and timeouts of the session are applied,
+ * but only basic authentication is supported.
+ * <p>
+ * Artifacts below the size threshold, repositories that do not support range requests or provide no checksum and repositories that need
+ * another kind of authentication, e.g. NTLM or client certificates, are left to the regular download.
+ */
+class ChunkedArtifactDownloader {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int MAX_REDIRECTS = 5;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CHUNKED_EXTENSION = ".chunked";
+    private static final String STATE_EXTENSION = ".chunked.state";
+    private static final String[][] CHECKSUM_ALGORITHMS = {{"SHA-1", ".sha1"}, {"MD5", ".md5"}};
+
+    private final long threshold;
+    private final int chunkSize;
+    private final int threads;
+    private final DependencyDownloader dependencyDownloader;
+    private final Log log;
+
+    /**
+     * Create a new downloader.
+     *
+     * @param threshold            the minimum size of an artifact in bytes to be downloaded in chunks.
+     * @param chunkSize            the size of a chunk in bytes.
+     * @param threads              the number of chunks downloaded in parallel.
+     * @param dependencyDownloader the downloader that uses this downloader, running downloads stop once it has been cancelled.
+     * @param log                  used to log progress and errors.
+     */
+    ChunkedArtifactDownloader(long threshold, int chunkSize, int threads, DependencyDownloader dependencyDownloader, Log log) {
+        this.threshold = threshold;
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.dependencyDownloader = dependencyDownloader;
+        this.log = log;
+    }
+
+    /**
+     * Returns true if a file in the local repository belongs to an incomplete chunked download.
+     *
+     * @param name the name of the file.
+     * @return true if the file contains the downloaded chunks or the state of an incomplete chunked download.
+     */
+    static boolean isDownloadFile(String name) {
+        return name.endsWith(CHUNKED_EXTENSION) || name.endsWith(STATE_EXTENSION) || name.endsWith(STATE_EXTENSION + ".tmp");
+    }
+
+    /**
+     * Download an artifact in chunks if it is larger than the threshold.
+     *
+     * @param session    the session providing the authentication and proxy of the repository.
+     * @param repository the repository to download from.
+     * @param artifact   the artifact to download.
+     * @param target     the file in the local repository the artifact is written to.
+     * @return true if the artifact has been downloaded, false if it is too small, the repository does not support range requests, provides
+     * no checksum or needs an unsupported authentication, or the download failed or has been cancelled.
+     */
+    boolean download(RepositorySystemSession session, RemoteRepository repository, Artifact artifact, File target) {
+        if (!repository.getProtocol().toLowerCase(Locale.ROOT).startsWith("http") || dependencyDownloader.isCancelled()) {
+            return false;
+        }
+        String url = repository.getUrl() + (repository.getUrl().endsWith("/") ? "" : "/") + toRepositoryPath(artifact);
+        try {
+            Connector connector = Connector.create(session, repository);
+            if (connector == null) {
+                log.debug("Not downloading " + artifact + " from " + repository.getId() + " in chunks, only basic authentication is supported");
+                return false;
+            }
+            return download(connector, url, target);
+        } catch (IOException e) {
+            if (dependencyDownloader.isCancelled()) {
+                log.debug("Chunked download of " + artifact + " has been cancelled, the downloaded chunks are kept for the next run");
+                return false;
+            }
+            log.warn("Chunked download of " + artifact + " from " + repository.getId() + " failed, falling back to regular download: " + e.getMessage());
+            log.debug(e);
+            return false;
+        }
+    }
+
+    private boolean download(Connector connector, String url, File target) throws IOException {
+        HttpURLConnection head = connector.open(url, "HEAD", null, null);
+        String location;
+        long length;
+        String validator;
+        String acceptRanges;
+        try {
+            if (head.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                return false;
+            }
+            // Repositories often redirect to a storage backend, download the chunks from there
+            location = head.getURL().toString();
+            length = head.getContentLengthLong();
+            acceptRanges = head.getHeaderField("Accept-Ranges");
+            validator = head.getHeaderField("ETag") != null ? head.getHeaderField("ETag") : head.getHeaderField("Last-Modified");
+        } finally {
+            head.disconnect();
+        }
+        if (length < threshold || !"bytes".equalsIgnoreCase(acceptRanges)) {
+            return false;
+        }
+        // Without checksum the chunks could not be verified, the regular download applies the checksum policy of the repository instead
+        String[] expectedChecksum = fetchChecksum(connector, url);
+        if (expectedChecksum == null) {
+            log.debug("Not downloading " + url + " in chunks, the repository provides no checksum for it");
+            return false;
+        }
+
+        Files.createDirectories(target.getParentFile().toPath());
+        File chunkedFile = new File(target.getPath() + CHUNKED_EXTENSION);
+        DownloadState state = DownloadState.load(new File(target.getPath() + STATE_EXTENSION), url, length, validator, chunkSize);
+        if (!chunkedFile.isFile() || chunkedFile.length() != length) {
+            state.reset();
+        }
+        int chunkCount = (int) ((length + chunkSize - 1) / chunkSize);
+        int missingChunks = chunkCount - state.completed.cardinality();
+        log.info("Downloading " + url + " (" + length / (1024 * 1024) + " MB) in " + missingChunks + " of " + chunkCount + " chunks");
+
+        try (FileChannel channel = FileChannel.open(chunkedFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != length) {
+                channel.truncate(0);
+                if (length > 0) {
+                    channel.write(ByteBuffer.wrap(new byte[1]), length - 1);
+                }
+            }
+            downloadChunks(connector, location, validator, channel, length, chunkCount, state);
+        }
+
+        String actualChecksum = computeChecksum(chunkedFile, expectedChecksum[0]);
+        if (!actualChecksum.equalsIgnoreCase(expectedChecksum[2])) {
+            // The chunks do not add up to the file of the repository, start from scratch next time
+            Files.deleteIfExists(chunkedFile.toPath());
+            Files.deleteIfExists(state.file.toPath());
+            throw new NotRetryableException(expectedChecksum[0] + " checksum mismatch for " + url + ": expected " + expectedChecksum[2] + " but was "
+                    + actualChecksum);
+        }
+        Files.move(chunkedFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(state.file.toPath());
+        // Store the checksum next to the artifact, like the regular download does
+        Files.write(new File(target.getPath() + expectedChecksum[1]).toPath(), actualChecksum.getBytes(StandardCharsets.US_ASCII));
+        return true;
+    }
+
+    /**
+     * Download the missing chunks. Once a chunk failed, no further chunks are started, but the chunks that are already running are
+     * completed, so no download continues in the background after this method returned.
+     */
+    private void downloadChunks(final Connector connector, final String url, final String validator, final FileChannel channel, final long length,
+                                int chunkCount, final DownloadState state) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunkCount)));
+        final AtomicBoolean failed = new AtomicBoolean();
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < chunkCount; i++) {
+                if (state.isCompleted(i)) {
+                    continue;
+                }
+                final int chunk = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        if (failed.get()) {
+                            return null;
+                        }
+                        try {
+                            checkCancelled();
+                            long start = (long) chunk * chunkSize;
+                            downloadChunk(connector, url, validator, channel, start, Math.min(length, start + chunkSize) - 1);
+                            channel.force(false);
+                            state.complete(chunk);
+                            return null;
+                        } catch (IOException | RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            executor.shutdown();
+            ExecutionException firstFailure = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    firstFailure = firstFailure != null ? firstFailure : e;
+                }
+            }
+            if (firstFailure != null) {
+                if (firstFailure.getCause() instanceof IOException) {
+                    throw (IOException) firstFailure.getCause();
+                }
+                throw new IOException(firstFailure.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Download the bytes from start to end (inclusive). If the connection is dropped, the download continues at the last written byte.
+     */
+    private void downloadChunk(Connector connector, String url, String validator, FileChannel channel, long start, long end) throws IOException {
+        long position = start;
+        int attempts = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (position <= end) {
+            long attemptStart = position;
+            try {
+                // If the file changed since the download started, If-Range makes the repository send the whole file, which fails the download
+                // instead of mixing two versions of the file
+                HttpURLConnection connection = connector.open(url, "GET", "bytes=" + position + '-' + end, validator);
+                try {
+                    if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                        throw new NotRetryableException("Expected a partial response for " + url + " but got " + connection.getResponseCode());
+                    }
+                    try (InputStream in = connection.getInputStream()) {
+                        int read;
+                        while (position <= end && (read = in.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) != -1) {
+                            checkCancelled();
+                            ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                            while (bytes.hasRemaining()) {
+                                position += channel.write(bytes, position);
+                            }
+                        }
+                    }
+                } finally {
+                    connection.disconnect();
+                }
+                if (position <= end) {
+                    throw new IOException("Connection closed after " + (position - start) + " of " + (end - start + 1) + " bytes");
+                }
+            } catch (NotRetryableException | CancelledException e) {
+                throw e;
+            } catch (IOException e) {
+                if (position > attemptStart) {
+                    attempts = 0;
+                }
+                if (++attempts >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Retrying bytes " + position + '-' + end + " of " + url + ": " + e.getMessage());
+                sleep(attempts * 500L);
+            }
+        }
+    }
+
+    /**
+     * Fetch the SHA-1 or, if the repository has none, the MD5 checksum of a file.
+     *
+     * @return the algorithm, the extension of the checksum file and the checksum or null if the repository has no checksum for the file.
+     */
+    private static String[] fetchChecksum(Connector connector, String url) throws IOException {
+        for (String[] algorithm : CHECKSUM_ALGORITHMS) {
+            HttpURLConnection connection = connector.open(url + algorithm[1], "GET", null, null);
+            try {
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    continue;
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    String content = new String(readFully(in), StandardCharsets.UTF_8).trim();
+                    // Some repositories append the file name to the checksum
+                    int space = content.indexOf(' ');
+                    return new String[]{algorithm[0], algorithm[1], space > 0 ? content.substring(0, space) : content};
+                }
+            } finally {
+                connection.disconnect();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stop a running chunk download once the {@link DependencyDownloader} has been cancelled. The completed chunks are kept.
+     */
+    private void checkCancelled() throws CancelledException {
+        if (dependencyDownloader.isCancelled()) {
+            throw new CancelledException();
+        }
+    }
+
+    private static String computeChecksum(File file, String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not supported", e);
+        }
+        byte[] chunk = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                digest.update(chunk, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String toRepositoryPath(Artifact artifact) {
+        StringBuilder path = new StringBuilder();
+        path.append(artifact.getGroupId().replace('.', '/')).append('/');
+        path.append(artifact.getArtifactId()).append('/');
+        path.append(artifact.getBaseVersion()).append('/');
+        path.append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            path.append('-').append(artifact.getClassifier());
+        }
+        if (!artifact.getExtension().isEmpty()) {
+            path.append('.').append(artifact.getExtension());
+        }
+        return path.toString();
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    /**
+     * Opens HTTP connections with the authentication, proxy, headers and timeouts of a repository.
+     */
+    private static final class Connector {
+
+        private final String host;
+        private final String authorization;
+        private final Proxy proxy;
+        private final String proxyAuthorization;
+        private final Map<String, String> headers;
+        private final int connectTimeout;
+        private final int readTimeout;
+
+        private Connector(String host, String authorization, Proxy proxy, String proxyAuthorization, Map<String, String> headers, int connectTimeout,
+                          int readTimeout) {
+            this.host = host;
+            this.authorization = authorization;
+            this.proxy = proxy;
+            this.proxyAuthorization = proxyAuthorization;
+            this.headers = headers;
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+        }
+
+        /**
+         * Create a connector with the configuration the HTTP transport of the resolver would use for the repository.
+         *
+         * @return the connector or null if the repository or its proxy need an authentication other than basic authentication.
+         */
+        static Connector create(RepositorySystemSession session, RemoteRepository repository) throws IOException {
+            String authorization;
+            try (AuthenticationContext context = AuthenticationContext.forRepository(session, repository)) {
+                if (!isBasicAuthentication(context)) {
+                    return null;
+                }
+                authorization = toBasicAuthorization(context);
+            }
+            Proxy proxy = Proxy.NO_PROXY;
+            String proxyAuthorization = null;
+            if (repository.getProxy() != null) {
+                proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(repository.getProxy().getHost(), repository.getProxy().getPort()));
+                try (AuthenticationContext context = AuthenticationContext.forProxy(session, repository)) {
+                    if (!isBasicAuthentication(context)) {
+                        return null;
+                    }
+                    proxyAuthorization = toBasicAuthorization(context);
+                }
+            }
+            Map<String, String> headers = new LinkedHashMap<>();
+            headers.put("User-Agent", ConfigUtils.getString(session, ConfigurationProperties.DEFAULT_USER_AGENT, ConfigurationProperties.USER_AGENT));
+            Map<?, ?> configuredHeaders = ConfigUtils.getMap(session, null, ConfigurationProperties.HTTP_HEADERS + '.' + repository.getId(),
+                    ConfigurationProperties.HTTP_HEADERS);
+            if (configuredHeaders != null) {
+                for (Map.Entry<?, ?> header : configuredHeaders.entrySet()) {
+                    if (header.getKey() instanceof String && header.getValue() instanceof String) {
+                        headers.put((String) header.getKey(), (String) header.getValue());
+                    }
+                }
+            }
+            int connectTimeout = ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                    ConfigurationProperties.CONNECT_TIMEOUT + '.' + repository.getId(), ConfigurationProperties.CONNECT_TIMEOUT);
+            int readTimeout = ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                    ConfigurationProperties.REQUEST_TIMEOUT + '.' + repository.getId(), ConfigurationProperties.REQUEST_TIMEOUT);
+            return new Connector(new URL(repository.getUrl()).getHost(), authorization, proxy, proxyAuthorization, headers, connectTimeout, readTimeout);
+        }
+
+        /**
+         * Open a connection and follow redirects. The credentials of the repository are only sent to the host of the repository.
+         */
+        HttpURLConnection open(String url, String method, String range, String ifRange) throws IOException {
+            URL location = new URL(url);
+            for (int redirects = 0; ; redirects++) {
+                HttpURLConnection connection = (HttpURLConnection) location.openConnection(proxy);
+                connection.setInstanceFollowRedirects(false);
+                connection.setConnectTimeout(connectTimeout);
+                connection.setReadTimeout(readTimeout);
+                connection.setRequestMethod(method);
+                for (Map.Entry<String, String> header : headers.entrySet()) {
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+                }
+                connection.setRequestProperty("Accept-Encoding", "identity");
+                if (range != null) {
+                    connection.setRequestProperty("Range", range);
+                }
+                if (ifRange != null) {
+                    connection.setRequestProperty("If-Range", ifRange);
+                }
+                if (authorization != null && location.getHost().equalsIgnoreCase(host)) {
+                    connection.setRequestProperty("Authorization", authorization);
+                }
+                if (proxyAuthorization != null) {
+                    connection.setRequestProperty("Proxy-Authorization", proxyAuthorization);
+                }
+                int status = connection.getResponseCode();
+                String redirect = connection.getHeaderField("Location");
+                if (status < 300 || status > 399 || status == HttpURLConnection.HTTP_NOT_MODIFIED || redirect == null) {
+                    return connection;
+                }
+                connection.disconnect();
+                if (redirects >= MAX_REDIRECTS) {
+                    throw new IOException("Too many redirects for " + url);
+                }
+                location = new URL(location, redirect);
+            }
+        }
+
+        /**
+         * Returns true if no authentication or only username and password are configured, i.e. no NTLM domain or workstation, client
+         * certificate or private key.
+         */
+        private static boolean isBasicAuthentication(AuthenticationContext context) {
+            return context == null || context.get(AuthenticationContext.NTLM_DOMAIN) == null
+                    && context.get(AuthenticationContext.NTLM_WORKSTATION) == null
+                    && context.get(AuthenticationContext.SSL_CONTEXT, SSLContext.class) == null
+                    && context.get(AuthenticationContext.PRIVATE_KEY_PATH) == null;
+        }
+
+        private static String toBasicAuthorization(AuthenticationContext context) {
+            if (context == null) {
+                return null;
+            }
+            String username = context.get(AuthenticationContext.USERNAME);
+            String password = context.get(AuthenticationContext.PASSWORD);
+            if (username == null) {
+                return null;
+            }
+            String credentials = username + ':' + (password != null ? password : "");
+            return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The completed chunks of a download, stored next to the chunked file.
+     */
+    private static final class DownloadState {
+
+        private final File file;
+        private final Properties properties = new Properties();
+        private final BitSet completed = new BitSet();
+
+        private DownloadState(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Load the state of a previous download. The state is only used if the remote file and the chunk size did not change.
+         */
+        static DownloadState load(File file, String url, long length, String validator, int chunkSize) throws IOException {
+            DownloadState state = new DownloadState(file);
+            Properties stored = new Properties();
+            if (file.isFile()) {
+                try (InputStream in = Files.newInputStream(file.toPath())) {
+                    stored.load(in);
+                }
+            }
+            state.properties.setProperty("url", url);
+            state.properties.setProperty("length", String.valueOf(length));
+            state.properties.setProperty("validator", validator != null ? validator : "");
+            state.properties.setProperty("chunkSize", String.valueOf(chunkSize));
+            boolean matches = validator != null;
+            for (String key : state.properties.stringPropertyNames()) {
+                matches &= state.properties.getProperty(key).equals(stored.getProperty(key));
+            }
+            if (matches) {
+                for (String chunk : stored.getProperty("completed", "").split(",")) {
+                    if (!chunk.isEmpty()) {
+                        state.completed.set(Integer.parseInt(chunk));
+                    }
+                }
+            }
+            return state;
+        }
+
+        synchronized boolean isCompleted(int chunk) {
+            return completed.get(chunk);
+        }
+
+        synchronized void reset() throws IOException {
+            completed.clear();
+            save();
+        }
+
+        synchronized void complete(int chunk) throws IOException {
+            completed.set(chunk);
+            save();
+        }
+
+        private void save() throws IOException {
+            StringBuilder chunks = new StringBuilder();
+            for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+                chunks.append(chunks.length() > 0 ? "," : "").append(i);
+            }
+            properties.setProperty("completed", chunks.toString());
+            File tempFile = new File(file.getPath() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile.toPath())) {
+                properties.store(out, "Chunked download state, written by the go-offline-maven-plugin");
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * An error that will not go away by retrying the request.
+     */
+    private static final class NotRetryableException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotRetryableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown to stop the download of a chunk once the {@link DependencyDownloader} has been cancelled.
+     */
+    private static final class CancelledException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        CancelledException() {
+            super("Download cancelled");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.model.building.ModelCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe model cache shared by all model builds, so parents and imported BOMs are only read once.
+ */
+class ConcurrentModelCache implements ModelCache {
+
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String groupId, String artifactId, String version, String tag, Object data) {
+        cache.put(groupId + ':' + artifactId + ':' + version + ':' + tag, data);
+    }
+
+    @Override
+    public Object get(String groupId, String artifactId, String version, String tag) {
+        return cache.get(groupId + ':' + artifactId + ':' + version + ':' + tag);
+    }
+}
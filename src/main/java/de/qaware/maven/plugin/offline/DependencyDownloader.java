@@ -4,12 +4,18 @@ import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
 import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.Plugin;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.building.ModelBuilder;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.model.building.ModelCache;
+import org.apache.maven.model.resolution.ModelResolver;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectModelResolver;
+import org.apache.maven.repository.internal.ArtifactDescriptorUtils;
 import org.codehaus.plexus.component.annotations.Component;
 import org.codehaus.plexus.component.annotations.Requirement;
-import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
@@ -25,25 +31,42 @@ import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.graph.DependencyVisitor;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.repository.LocalArtifactRegistration;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ChecksumFailureException;
+import org.eclipse.aether.util.artifact.ArtifactIdUtils;
 import org.eclipse.aether.util.graph.selector.AndDependencySelector;
 import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
 import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
 import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Downloads artifacts for project dependencies and plugins. This class maintains two separate sessions with separate caches
- * for project and plugin dependencies so all artifacts are resolved for all remote repository contexts.
+ * Downloads artifacts for project dependencies and plugins. This class maintains two separate sessions with separate cache views
+ * for project and plugin dependencies so all artifacts are resolved for all remote repository contexts. If the project and plugin
+ * repositories are the same, both views share their entries so artifact descriptors are only read once.
  * <p>
  * The downloader must be initialized by calling {@link #init(ProjectBuildingRequest, List, Log)} before any of its other methods my be used.
  * <p>
@@ -59,6 +82,41 @@ public class DependencyDownloader {
      */
     private static final String MAVEN_PLUGIN_ARTIFACT_TYPE = "maven-plugin";
 
+    /**
+     * Default maximum number of entries of the repository cache.
+     */
+    private static final int DEFAULT_REPOSITORY_CACHE_SIZE = 20000;
+
+    /**
+     * Message logged if a download batch fails.
+     */
+    private static final String DOWNLOAD_ERROR_MESSAGE = "Error downloading dependencies for project";
+
+    /**
+     * Configuration property of the basic repository connector for the number of parallel downloads.
+     */
+    private static final String DOWNLOAD_THREADS_PROPERTY = "aether.connector.basic.threads";
+
+    /**
+     * Number of artifact requests per download thread in one wave of adaptive downloads.
+     */
+    private static final int REQUESTS_PER_THREAD_AND_WAVE = 4;
+
+    /**
+     * Number of times requests that have been throttled by the repository (HTTP 429) are retried.
+     */
+    private static final int THROTTLED_RETRIES = 3;
+
+    /**
+     * Time to wait before throttled requests are retried the first time. Doubled for each further retry.
+     */
+    private static final long THROTTLED_RETRY_DELAY_MILLIS = 500;
+
+    /**
+     * Configuration property of the update check manager that controls whether transfers that failed in the same session are attempted again.
+     */
+    private static final String UPDATE_CHECK_SESSION_STATE_PROPERTY = "aether.updateCheckManager.sessionState";
+
     /**
      * Aether repository system
      */
@@ -71,35 +129,86 @@ public class DependencyDownloader {
     @Requirement
     private ArtifactHandlerManager artifactHandlerManager;
 
+    /**
+     * Maven model builder
+     */
+    @Requirement
+    private ModelBuilder modelBuilder;
+
+    /**
+     * Aether remote repository manager
+     */
+    @Requirement
+    private RemoteRepositoryManager remoteRepositoryManager;
+
     private DefaultRepositorySystemSession remoteSession;
     private DefaultRepositorySystemSession pluginSession;
+    private BoundedRepositoryCache repositoryCache;
     private List<RemoteRepository> remoteRepositories;
     private List<RemoteRepository> pluginRepositories;
     private ArtifactTypeRegistry typeRegistry;
+    private Map<RepositoryType, PomReferenceResolver> pomReferenceResolvers;
     private Log log;
+    private ResolutionEvents events;
     private List<Exception> errors;
 
     private boolean downloadSources = false;
     private boolean downloadJavadoc = false;
+    private boolean failFast = false;
+    private volatile boolean cancelled;
     private Set<ReactorArtifact> reactorArtifacts;
+    private Set<String> rootArtifactIds;
+    private List<File> reactorPomFiles;
+    private DescriptorIndex descriptorIndex;
+    private ThroughputTransferListener throughputListener;
+    private AdaptiveConcurrencyController concurrencyController;
+    private ChunkedArtifactDownloader chunkedDownloader;
+    private Set<String> dynamicDependencyKeys;
 
     DependencyDownloader() {
         // Noop
     }
 
     /**
-     * Initialize the DependencyDownloader
+     * Create a downloader that uses the given components instead of injected ones.
+     */
+    DependencyDownloader(RepositorySystem repositorySystem, RemoteRepositoryManager remoteRepositoryManager, ModelBuilder modelBuilder,
+                         ArtifactHandlerManager artifactHandlerManager) {
+        this.repositorySystem = repositorySystem;
+        this.remoteRepositoryManager = remoteRepositoryManager;
+        this.modelBuilder = modelBuilder;
+        this.artifactHandlerManager = artifactHandlerManager;
+    }
+
+    /**
+     * Initialize the DependencyDownloader with the default repository cache size.
      *
      * @param buildingRequest a buildingRequest containing the maven session and Repositories to be used to download artifacts
      * @param reactorProjects the reactorProjects of the current build used to exclude reactor artifacts from the dependency download.
      * @param logger          used to log infos and warnings.
      */
     public void init(ProjectBuildingRequest buildingRequest, List<MavenProject> reactorProjects, Log logger) {
+        init(buildingRequest, reactorProjects, DEFAULT_REPOSITORY_CACHE_SIZE, logger);
+    }
+
+    /**
+     * Initialize the DependencyDownloader
+     *
+     * @param buildingRequest     a buildingRequest containing the maven session and Repositories to be used to download artifacts
+     * @param reactorProjects     the reactorProjects of the current build used to exclude reactor artifacts from the dependency download.
+     *                            The repositories and plugin repositories declared in their models are used as well.
+     * @param repositoryCacheSize the maximum number of evictable entries of the repository cache shared by the project and plugin sessions,
+     *                            see {@link BoundedRepositoryCache}.
+     * @param logger              used to log infos and warnings.
+     */
+    public void init(ProjectBuildingRequest buildingRequest, List<MavenProject> reactorProjects, int repositoryCacheSize, Log logger) {
         this.log = logger;
+        this.events = ResolutionEvents.create(logger);
         typeRegistry = RepositoryUtils.newArtifactTypeRegistry(artifactHandlerManager);
-        remoteRepositories = RepositoryUtils.toRepos(buildingRequest.getRemoteRepositories());
-        pluginRepositories = RepositoryUtils.toRepos(buildingRequest.getPluginArtifactRepositories());
         remoteSession = new DefaultRepositorySystemSession(buildingRequest.getRepositorySession());
+        remoteRepositories = addReactorRepositories(RepositoryUtils.toRepos(buildingRequest.getRemoteRepositories()), reactorProjects, RepositoryType.MAIN);
+        pluginRepositories = addReactorRepositories(RepositoryUtils.toRepos(buildingRequest.getPluginArtifactRepositories()), reactorProjects,
+                RepositoryType.PLUGIN);
 
         DependencySelector wagonExcluder = null;
         try {
@@ -112,16 +221,32 @@ public class DependencyDownloader {
         }
 
         reactorArtifacts = computeReactorArtifacts(reactorProjects);
+        reactorPomFiles = new ArrayList<>(reactorProjects.size());
+        for (MavenProject reactorProject : reactorProjects) {
+            if (reactorProject.getFile() != null) {
+                reactorPomFiles.add(reactorProject.getFile());
+            }
+        }
+        descriptorIndex = null;
+        throughputListener = null;
+        concurrencyController = null;
+        chunkedDownloader = null;
+        dynamicDependencyKeys = Collections.emptySet();
         DependencySelector selector = new AndDependencySelector(new ScopeDependencySelector("system", "test", "provided"), new OptionalDependencySelector(), new ExclusionDependencySelector());
         remoteSession.setDependencySelector(selector);
 
         pluginSession = new DefaultRepositorySystemSession(remoteSession);
-        remoteSession.setCache(new DefaultRepositoryCache());
-        pluginSession.setCache(new DefaultRepositoryCache());
+        initRepositoryCache(repositoryCacheSize);
         if (wagonExcluder != null) {
             pluginSession.setDependencySelector(new AndDependencySelector(new ScopeDependencySelector("system", "test", "provided"), new OptionalDependencySelector(), wagonExcluder, new ExclusionDependencySelector()));
         }
+        ModelCache modelCache = new ConcurrentModelCache();
+        pomReferenceResolvers = new EnumMap<>(RepositoryType.class);
+        pomReferenceResolvers.put(RepositoryType.MAIN, newPomReferenceResolver(buildingRequest, remoteSession, remoteRepositories, modelCache));
+        pomReferenceResolvers.put(RepositoryType.PLUGIN, newPomReferenceResolver(buildingRequest, pluginSession, pluginRepositories, modelCache));
         this.errors = new ArrayList<>();
+        this.rootArtifactIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        this.cancelled = false;
     }
 
     /**
@@ -138,54 +263,470 @@ public class DependencyDownloader {
         this.downloadJavadoc = true;
     }
 
+    /**
+     * Add the repositories declared in the models of the reactor projects to the repositories of the build. The mojo only gets the
+     * repositories of the project it is executed on, which misses the repositories of modules, e.g. if the modules have been read by the
+     * {@link ReactorScanner}. The repositories of the build take precedence over module repositories with the same id, mirrors, proxies and
+     * authentication of the settings are applied to the module repositories.
+     */
+    private List<RemoteRepository> addReactorRepositories(List<RemoteRepository> repositories, List<MavenProject> reactorProjects,
+                                                          RepositoryType repositoryType) {
+        List<RemoteRepository> reactorRepositories = new ArrayList<>();
+        for (MavenProject reactorProject : reactorProjects) {
+            List<Repository> declaredRepositories = repositoryType == RepositoryType.MAIN ? reactorProject.getModel().getRepositories()
+                    : reactorProject.getModel().getPluginRepositories();
+            for (Repository repository : declaredRepositories) {
+                reactorRepositories.add(ArtifactDescriptorUtils.toRemoteRepository(repository));
+            }
+        }
+        if (reactorRepositories.isEmpty()) {
+            return repositories;
+        }
+        return remoteRepositoryManager.aggregateRepositories(remoteSession, repositories, reactorRepositories, true);
+    }
+
+    private PomReferenceResolver newPomReferenceResolver(ProjectBuildingRequest buildingRequest, RepositorySystemSession session,
+                                                         List<RemoteRepository> repositories, ModelCache modelCache) {
+        ModelResolver modelResolver = new ProjectModelResolver(session, null, repositorySystem, remoteRepositoryManager, repositories,
+                buildingRequest.getRepositoryMerging(), null);
+        return new PomReferenceResolver(modelBuilder, modelResolver, modelCache, buildingRequest.getSystemProperties(), buildingRequest.getUserProperties());
+    }
+
+    /**
+     * Create the repository cache shared by the project and plugin sessions. Cached models and version resolution results are evicted in
+     * least recently used order once the limit is reached. The resolver's data pools, which hold the artifact descriptors, are pinned.
+     */
+    private void initRepositoryCache(int maxEntries) {
+        repositoryCache = new BoundedRepositoryCache(maxEntries);
+        remoteSession.setCache(new ScopedRepositoryCache(repositoryCache, remoteRepositories));
+        pluginSession.setCache(new ScopedRepositoryCache(repositoryCache, pluginRepositories));
+        if (remoteRepositories.equals(pluginRepositories)) {
+            log.debug("Project and plugin repositories are identical, sharing cached artifact descriptors between both sessions");
+        }
+    }
+
+    /**
+     * Write the hit, miss and eviction counters of the repository cache to the log.
+     */
+    public void logRepositoryCacheStatistics() {
+        repositoryCache.logStatistics(log, "Shared");
+    }
+
+    /**
+     * Enable the persistent descriptor index stored in the local repository.
+     * <p>
+     * Dependency collection results are looked up in the index before the dependencies are collected, which skips reading and parsing
+     * the POMs of the dependency tree if none of them changed since the last run.
+     */
+    public void enableDescriptorIndex() {
+        descriptorIndex = new DescriptorIndex(remoteSession.getLocalRepository().getBasedir(), remoteSession.getSystemProperties(),
+                remoteSession.getUserProperties(), log);
+    }
+
+    /**
+     * Write all new entries to the descriptor index file. Does nothing if the descriptor index is not enabled.
+     */
+    public void saveDescriptorIndex() {
+        if (descriptorIndex != null) {
+            descriptorIndex.save();
+        }
+    }
+
+    /**
+     * Set the number of threads used to download the artifacts of each repository in parallel.
+     *
+     * @param threads the number of download threads per repository.
+     */
+    public void setDownloadThreads(int threads) {
+        remoteSession.setConfigProperty(DOWNLOAD_THREADS_PROPERTY, threads);
+        pluginSession.setConfigProperty(DOWNLOAD_THREADS_PROPERTY, threads);
+    }
+
+    /**
+     * Enable adaptive download concurrency.
+     * <p>
+     * The artifacts are downloaded in waves. After each wave the number of parallel downloads is adjusted to the throughput, latency
+     * and error rate observed for each repository, see {@link AdaptiveConcurrencyController}. The resolver only supports one number
+     * of download threads for all repositories, so the lowest concurrency of all repositories is used. The last concurrency of each
+     * repository is stored in the local repository and used as starting point of the next run.
+     *
+     * @param minThreads     the minimum number of download threads per repository.
+     * @param maxThreads     the maximum number of download threads per repository.
+     * @param initialThreads the number of download threads to start with if there is no stored concurrency for the repositories.
+     */
+    public void enableAdaptiveConcurrency(int minThreads, int maxThreads, int initialThreads) {
+        throughputListener = new ThroughputTransferListener();
+        remoteSession.setTransferListener(ChainedTransferListener.newInstance(remoteSession.getTransferListener(), throughputListener));
+        pluginSession.setTransferListener(ChainedTransferListener.newInstance(pluginSession.getTransferListener(), throughputListener));
+        Set<String> repositoryUrls = new LinkedHashSet<>();
+        for (RemoteRepository repository : remoteRepositories) {
+            repositoryUrls.add(ThroughputTransferListener.toRepositoryKey(repository.getUrl()));
+        }
+        for (RemoteRepository repository : pluginRepositories) {
+            repositoryUrls.add(ThroughputTransferListener.toRepositoryKey(repository.getUrl()));
+        }
+        File localRepository = remoteSession.getLocalRepository().getBasedir();
+        concurrencyController = new AdaptiveConcurrencyController(minThreads, maxThreads, initialThreads, repositoryUrls, localRepository, log);
+    }
+
+    /**
+     * Enable chunked downloads for large dynamic dependencies.
+     * <p>
+     * Dynamic dependencies that are larger than the threshold are downloaded in parallel chunks using HTTP range requests
+     * before the regular download, see {@link ChunkedArtifactDownloader}. Interrupted downloads are resumed in the next run.
+     *
+     * @param threshold           the minimum size of an artifact in bytes to be downloaded in chunks.
+     * @param chunkSize           the size of a chunk in bytes.
+     * @param threads             the number of chunks of an artifact downloaded in parallel.
+     * @param dynamicDependencies the dynamic dependencies that may be downloaded in chunks.
+     */
+    public void enableChunkedDownloads(long threshold, int chunkSize, int threads, Collection<DynamicDependency> dynamicDependencies) {
+        chunkedDownloader = new ChunkedArtifactDownloader(threshold, chunkSize, threads, this, log);
+        dynamicDependencyKeys = new HashSet<>();
+        for (DynamicDependency dynamicDependency : dynamicDependencies) {
+            dynamicDependencyKeys.add(toDynamicDependencyKey(toArtifact(dynamicDependency)));
+        }
+    }
+
+    /**
+     * Create a lockfile containing the given artifacts and the checksums of their files in the local repository.
+     * Artifacts that have not been downloaded are left out. Snapshots are added without checksum, their content changes with every deployment.
+     *
+     * @param artifacts the artifacts to add to the lockfile.
+     * @return the lockfile.
+     */
+    public Lockfile createLockfile(Collection<ArtifactWithRepoType> artifacts) {
+        Lockfile lockfile = new Lockfile();
+        for (ArtifactWithRepoType artifact : artifacts) {
+            File file = getLocalFile(artifact.getArtifact());
+            if (!file.isFile()) {
+                log.warn("Not adding " + artifact.getArtifact() + " to the lockfile, it has not been downloaded");
+                continue;
+            }
+            if (artifact.getArtifact().isSnapshot()) {
+                lockfile.add(artifact, null);
+                continue;
+            }
+            try {
+                lockfile.add(artifact, Lockfile.checksum(file));
+            } catch (IOException e) {
+                log.warn("Not adding " + artifact.getArtifact() + " to the lockfile: " + e.getMessage());
+            }
+        }
+        return lockfile;
+    }
+
+    /**
+     * Returns the POMs of the given artifacts together with all their parent POMs and imported BOMs, as far as they are present
+     * in the local repository. These POMs are needed to build offline, but only the POMs of the artifacts themselves appear in a dependency tree.
+     * The parent POMs and imported BOMs are taken from the models of the POMs, see {@link PomReferenceResolver}.
+     *
+     * @param artifacts the artifacts to return the POMs for.
+     * @return the POM artifacts that are present in the local repository.
+     */
+    public Set<ArtifactWithRepoType> getPomClosure(Collection<ArtifactWithRepoType> artifacts) {
+        Map<RepositoryType, Map<Artifact, File>> closures = new EnumMap<>(RepositoryType.class);
+        for (ArtifactWithRepoType artifactWithRepoType : artifacts) {
+            RepositoryType repositoryType = artifactWithRepoType.getRepositoryType();
+            Map<Artifact, File> closure = closures.get(repositoryType);
+            if (closure == null) {
+                closure = new HashMap<>();
+                closures.put(repositoryType, closure);
+            }
+            addPomClosure(toPomArtifact(artifactWithRepoType.getArtifact()), repositoryType, closure);
+        }
+        Set<ArtifactWithRepoType> poms = new HashSet<>();
+        for (Map.Entry<RepositoryType, Map<Artifact, File>> closure : closures.entrySet()) {
+            for (Artifact pom : closure.getValue().keySet()) {
+                poms.add(new ArtifactWithRepoType(pom, closure.getKey()));
+            }
+        }
+        return poms;
+    }
+
+    /**
+     * Verify that the files of all artifacts in the lockfile match the checksums recorded in the lockfile. Mismatches are reported as errors.
+     * Artifacts without checksum, i.e. snapshots, are not verified.
+     *
+     * @param lockfile the lockfile to verify.
+     */
+    public void verifyLockfile(Lockfile lockfile) {
+        for (ArtifactWithRepoType artifact : lockfile.getArtifacts()) {
+            String expected = lockfile.getChecksum(artifact);
+            File file = getLocalFile(artifact.getArtifact());
+            if (expected == null || !file.isFile()) {
+                // Snapshots are not verified, download errors have already been reported
+                continue;
+            }
+            try {
+                String checksum = Lockfile.checksum(file);
+                if (!checksum.equals(expected)) {
+                    handleRepositoryException(new ChecksumFailureException("Checksum validation failed for " + artifact.getArtifact()
+                            + " from lockfile, expected " + expected + " but is " + checksum));
+                }
+            } catch (IOException e) {
+                handleRepositoryException(e);
+            }
+        }
+    }
+
+    /**
+     * Enable fail-fast mode.
+     * <p>
+     * In fail-fast mode the first error that makes the remaining work pointless cancels all outstanding work. These are errors with an
+     * {@link ErrorCause#isUnrecoverable() unrecoverable} cause and missing root artifacts of a plugin or dynamic dependency. Other errors,
+     * e.g. a missing transitive dependency, are only recorded. After the cancellation transfers that are in flight are aborted
+     * and all subsequent calls to the resolve and download methods return without doing anything.
+     */
+    public void enableFailFast() {
+        this.failFast = true;
+        FailFastTransferListener failFastListener = new FailFastTransferListener(this);
+        remoteSession.setTransferListener(ChainedTransferListener.newInstance(remoteSession.getTransferListener(), failFastListener));
+        pluginSession.setTransferListener(ChainedTransferListener.newInstance(pluginSession.getTransferListener(), failFastListener));
+    }
+
+    /**
+     * Returns true if the downloader has been cancelled because of an error in fail-fast mode.
+     *
+     * @return true if the downloader has been cancelled because of an error in fail-fast mode.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancel all outstanding work. Has no effect if fail-fast mode is not enabled.
+     *
+     * @param reason the reason for the cancellation, used for logging.
+     */
+    void cancel(String reason) {
+        if (failFast && !cancelled) {
+            cancelled = true;
+            log.error("Cancelling all outstanding downloads: " + reason);
+        }
+    }
+
     /**
      * Download the collection of artifacts
      * 
      * @param artifacts the collection of ReactorArtifacts that wants to be downloaded.
      */
     public void downloadArtifacts(Collection<ArtifactWithRepoType> artifacts) {
-        List<ArtifactRequest> mainRequests = new ArrayList<>(artifacts.size());
-        List<ArtifactRequest> pluginRequests = new ArrayList<>(artifacts.size());
-        for (ArtifactWithRepoType artifactWithRepoType : artifacts) {
-            Artifact artifact = artifactWithRepoType.getArtifact();
+        if (cancelled) {
+            return;
+        }
+        if (chunkedDownloader != null) {
+            downloadLargeArtifacts(artifacts);
+        }
+        // Project and plugin artifacts are downloaded in one batch, each request carries its own repositories
+        Set<ArtifactWithRepoType> allArtifacts = new LinkedHashSet<>(artifacts);
+        allArtifacts.addAll(getAttachedArtifacts(artifacts));
+        List<ArtifactRequest> requests = new ArrayList<>(allArtifacts.size());
+        for (ArtifactWithRepoType artifactWithRepoType : allArtifacts) {
             RepositoryType context = artifactWithRepoType.getRepositoryType();
+            requests.add(new ArtifactRequest(artifactWithRepoType.getArtifact(), context == RepositoryType.MAIN ? remoteRepositories : pluginRepositories,
+                    context.getRequestContext()));
+        }
+        downloadBatch(remoteSession, requests);
+        if (concurrencyController != null) {
+            concurrencyController.saveHints();
+        }
+    }
+
+    /**
+     * Returns the sources and javadoc artifacts that are downloaded together with the given artifacts, if downloading them is enabled.
+     *
+     * @param artifacts the artifacts.
+     * @return the sources and javadoc artifacts of the artifacts.
+     */
+    public Set<ArtifactWithRepoType> getAttachedArtifacts(Collection<ArtifactWithRepoType> artifacts) {
+        Set<ArtifactWithRepoType> attachedArtifacts = new HashSet<>();
+        for (ArtifactWithRepoType artifactWithRepoType : artifacts) {
+            for (Artifact attachedArtifact : getAttachedArtifacts(artifactWithRepoType)) {
+                attachedArtifacts.add(new ArtifactWithRepoType(attachedArtifact, RepositoryType.MAIN));
+            }
+        }
+        return attachedArtifacts;
+    }
 
-            ArtifactRequest artifactRequest = new ArtifactRequest();
-            artifactRequest.setArtifact(artifact);
-            artifactRequest.setRepositories(context == RepositoryType.MAIN ? remoteRepositories : pluginRepositories);
-            if (context == RepositoryType.MAIN) {
-                artifactRequest.setRequestContext(context.getRequestContext());
-                mainRequests.add(artifactRequest);
+    private List<Artifact> getAttachedArtifacts(ArtifactWithRepoType artifactWithRepoType) {
+        Artifact artifact = artifactWithRepoType.getArtifact();
+        if (artifactWithRepoType.getRepositoryType() != RepositoryType.MAIN || !"jar".equals(artifact.getExtension())) {
+            return Collections.emptyList();
+        }
+        List<Artifact> attachedArtifacts = new ArrayList<>(2);
+        if (downloadSources) {
+            attachedArtifacts.add(new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "sources", artifact.getExtension(), artifact.getVersion()));
+        }
+        if (downloadJavadoc) {
+            attachedArtifacts.add(new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "javadoc", artifact.getExtension(), artifact.getVersion()));
+        }
+        return attachedArtifacts;
+    }
 
-            } else {
-                artifactRequest.setRequestContext(context.getRequestContext());
-                pluginRequests.add(artifactRequest);
+    /**
+     * Download the dynamic dependencies that are missing in the local repository with the chunked downloader. The downloaded files are
+     * registered in the local repository, so the regular download that follows does not download them again.
+     */
+    private void downloadLargeArtifacts(Collection<ArtifactWithRepoType> artifacts) {
+        for (ArtifactWithRepoType artifactWithRepoType : artifacts) {
+            Artifact artifact = artifactWithRepoType.getArtifact();
+            if (cancelled || artifact.isSnapshot() || !dynamicDependencyKeys.contains(toDynamicDependencyKey(artifact))) {
+                continue;
             }
-            if (context == RepositoryType.MAIN && "jar".equals(artifact.getExtension())) {
-                if (downloadSources) {
-                    Artifact sourceArtifact = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "sources", artifact.getExtension(), artifact.getVersion());
-                    mainRequests.add(new ArtifactRequest(sourceArtifact, remoteRepositories, context.getRequestContext()));
+            File target = getLocalFile(artifact);
+            if (target.isFile()) {
+                continue;
+            }
+            RepositoryType repositoryType = artifactWithRepoType.getRepositoryType();
+            DefaultRepositorySystemSession session = repositoryType == RepositoryType.MAIN ? remoteSession : pluginSession;
+            for (RemoteRepository repository : repositoryType == RepositoryType.MAIN ? remoteRepositories : pluginRepositories) {
+                if (chunkedDownloader.download(session, repository, artifact, target)) {
+                    session.getLocalRepositoryManager().add(session,
+                            new LocalArtifactRegistration(artifact, repository, Collections.singleton(repositoryType.getRequestContext())));
+                    break;
                 }
-                if (downloadJavadoc) {
-                    Artifact javadocArtifact = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "javadoc", artifact.getExtension(), artifact.getVersion());
-                    mainRequests.add(new ArtifactRequest(javadocArtifact, remoteRepositories, context.getRequestContext()));
+            }
+        }
+    }
+
+    private static String toDynamicDependencyKey(Artifact artifact) {
+        return artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getExtension() + ':' + artifact.getClassifier();
+    }
+
+    /**
+     * Download a batch of artifacts. Requests that have been throttled by the repository are not reported as errors but retried after all
+     * other requests, with an increasing delay. Only requests that are still throttled after all retries are reported.
+     */
+    private void downloadBatch(DefaultRepositorySystemSession session, List<ArtifactRequest> requests) {
+        List<ArtifactRequest> pending = requests;
+        for (int retry = 0; !pending.isEmpty() && !cancelled; retry++) {
+            DefaultRepositorySystemSession retrySession = session;
+            if (retry > 0) {
+                long delay = THROTTLED_RETRY_DELAY_MILLIS << (retry - 1);
+                log.info("Retrying " + pending.size() + " downloads throttled by the repository in " + delay + " ms");
+                if (!sleep(delay)) {
+                    return;
                 }
+                retrySession = newRetrySession(session);
             }
+            pending = downloadWaves(retrySession, pending, retry < THROTTLED_RETRIES);
+        }
+    }
+
+    /**
+     * Download the requests in waves if adaptive concurrency is enabled, or in one wave otherwise.
+     *
+     * @return the requests that have been throttled and should be retried.
+     */
+    private List<ArtifactRequest> downloadWaves(DefaultRepositorySystemSession session, List<ArtifactRequest> requests, boolean retryThrottled) {
+        List<ArtifactRequest> throttled = retryThrottled ? new ArrayList<ArtifactRequest>() : null;
+        if (concurrencyController == null) {
+            downloadWave(session, requests, throttled);
+            return throttled != null ? throttled : Collections.<ArtifactRequest>emptyList();
+        }
+        // Split the batch into waves, so the concurrency can be adjusted to the behaviour of the repositories in between
+        int offset = 0;
+        while (offset < requests.size() && !cancelled) {
+            int concurrency = concurrencyController.getConcurrency();
+            int end = Math.min(requests.size(), offset + concurrency * REQUESTS_PER_THREAD_AND_WAVE);
+            session.setConfigProperty(DOWNLOAD_THREADS_PROPERTY, concurrency);
+            long start = System.currentTimeMillis();
+            downloadWave(session, requests.subList(offset, end), throttled);
+            concurrencyController.update(throughputListener.drainStatistics(), System.currentTimeMillis() - start);
+            offset = end;
         }
+        return throttled != null ? throttled : Collections.<ArtifactRequest>emptyList();
+    }
+
+    /**
+     * Download one wave of requests.
+     *
+     * @param throttled the list to add requests to that have been throttled by the repository, or null if throttled requests should be reported as errors.
+     */
+    private void downloadWave(RepositorySystemSession session, List<ArtifactRequest> requests, List<ArtifactRequest> throttled) {
+        if (cancelled) {
+            return;
+        }
+        Object batchEvent = events.beginDownloadBatch();
         try {
-            repositorySystem.resolveArtifacts(remoteSession, mainRequests);
-        } catch (ArtifactResolutionException | RuntimeException e) {
-            log.error("Error downloading dependencies for project");
+            repositorySystem.resolveArtifacts(session, requests);
+            events.endDownloadBatch(batchEvent, requests.size(), 0);
+        } catch (ArtifactResolutionException e) {
+            ArtifactResolutionException failure = throttled != null ? removeThrottledRequests(e, throttled) : e;
+            events.endDownloadBatch(batchEvent, requests.size(), failure != null ? countFailedRequests(failure) : 0);
+            if (failure != null) {
+                log.error(DOWNLOAD_ERROR_MESSAGE);
+                handleRepositoryException(failure);
+            }
+        } catch (RuntimeException e) {
+            events.endDownloadBatch(batchEvent, requests.size(), countFailedRequests(e));
+            log.error(DOWNLOAD_ERROR_MESSAGE);
             handleRepositoryException(e);
         }
+    }
+
+    /**
+     * Move the requests that failed because a repository throttled them to the given list.
+     *
+     * @return an exception containing the remaining results or null if no other request failed.
+     */
+    private static ArtifactResolutionException removeThrottledRequests(ArtifactResolutionException e, List<ArtifactRequest> throttled) {
+        List<ArtifactResult> remaining = new ArrayList<>();
+        boolean failed = false;
+        for (ArtifactResult result : e.getResults()) {
+            if (!result.isResolved() && isThrottled(result)) {
+                throttled.add(result.getRequest());
+            } else {
+                remaining.add(result);
+                failed |= !result.isResolved();
+            }
+        }
+        return failed ? new ArtifactResolutionException(remaining) : null;
+    }
+
+    private static boolean isThrottled(ArtifactResult result) {
+        for (Exception exception : result.getExceptions()) {
+            if (ErrorCause.classify(exception) == ErrorCause.THROTTLED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a session that attempts transfers again that failed before. The update check manager remembers failed transfers
+     * for the rest of the session and would report the remembered error without contacting the repository again.
+     */
+    private static DefaultRepositorySystemSession newRetrySession(DefaultRepositorySystemSession session) {
+        DefaultRepositorySystemSession retrySession = new DefaultRepositorySystemSession(session);
+        retrySession.setConfigProperty(UPDATE_CHECK_SESSION_STATE_PROPERTY, "bypass");
+        return retrySession;
+    }
+
+    private static boolean sleep(long millis) {
         try {
-            repositorySystem.resolveArtifacts(pluginSession, pluginRequests);
-        } catch (ArtifactResolutionException | RuntimeException e) {
-            log.error("Error downloading plugin dependencies for project");
-            handleRepositoryException(e);
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
+    private static int countFailedRequests(Exception e) {
+        if (!(e instanceof ArtifactResolutionException)) {
+            return 0;
+        }
+        int failed = 0;
+        for (ArtifactResult result : ((ArtifactResolutionException) e).getResults()) {
+            if (!result.isResolved()) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
     /**
      * Download all dependencies of a maven project including transitive dependencies.
      * Dependencies that refer to an artifact in the current reactor build are ignored.
@@ -196,6 +737,9 @@ public class DependencyDownloader {
      * @return The set of resolved ArtifactRepositoryType pairs
      */
     public Set<ArtifactWithRepoType> resolveDependencies(MavenProject project) {
+        if (cancelled) {
+            return Collections.emptySet();
+        }
         Artifact projectArtifact = RepositoryUtils.toArtifact(project.getArtifact());
         CollectRequest collectRequest = new CollectRequest();
         collectRequest.setRepositories(remoteRepositories);
@@ -221,8 +765,7 @@ public class DependencyDownloader {
         collectRequest.setManagedDependencies(aetherDepManagement);
 
         try {
-            CollectResult collectResult = repositorySystem.collectDependencies(remoteSession, collectRequest);
-            return getArtifactsFromCollectResult(collectResult, RepositoryType.MAIN);
+            return collectArtifacts(remoteSession, collectRequest, RepositoryType.MAIN, "project");
         } catch (RepositoryException | RuntimeException e) {
             log.error("Error resolving dependencies for project " + project.getGroupId() + ":" + project.getArtifactId());
             handleRepositoryException(e);
@@ -230,23 +773,136 @@ public class DependencyDownloader {
         return Collections.emptySet();
     }
 
-    private Set<ArtifactWithRepoType> getArtifactsFromCollectResult(CollectResult collectResult, RepositoryType context) {
+    /**
+     * Collect the dependencies of a collect request. If the descriptor index is enabled, the collected artifacts are looked up in the index first
+     * and stored in the index after a successful collection.
+     */
+    private Set<ArtifactWithRepoType> collectArtifacts(RepositorySystemSession session, CollectRequest collectRequest, RepositoryType context, String kind)
+            throws DependencyCollectionException {
+        Object collectionEvent = events.beginCollection();
+        Artifact requestArtifact = collectRequest.getRoot() != null ? collectRequest.getRoot().getArtifact() : collectRequest.getRootArtifact();
+        String coordinates = String.valueOf(requestArtifact);
+        if (collectRequest.getRoot() != null) {
+            rootArtifactIds.add(ArtifactIdUtils.toId(requestArtifact));
+        }
+        String indexKey = null;
+        if (descriptorIndex != null) {
+            indexKey = descriptorIndex.keyOf(collectRequest, context);
+            Set<Artifact> indexedArtifacts = descriptorIndex.lookup(indexKey);
+            if (indexedArtifacts != null) {
+                events.endCollection(collectionEvent, kind, coordinates, indexedArtifacts.size(), true, false);
+                return toArtifactsWithRepoType(indexedArtifacts, context);
+            }
+        }
+        CollectResult collectResult;
+        try {
+            collectResult = repositorySystem.collectDependencies(session, collectRequest);
+        } catch (DependencyCollectionException | RuntimeException e) {
+            events.endCollection(collectionEvent, kind, coordinates, 0, false, true);
+            throw e;
+        }
         CollectAllDependenciesVisitor visitor = new CollectAllDependenciesVisitor();
         collectResult.getRoot().accept(visitor);
-        Set<Artifact> visitorArtifacts = visitor.getArtifacts();
+        events.endCollection(collectionEvent, kind, coordinates, visitor.getNodeCount(), false, false);
+        Set<Artifact> artifacts = new HashSet<>(visitor.getArtifacts());
+        Artifact rootArtifact = collectResult.getRoot().getArtifact();
+        if (rootArtifact != null) {
+            artifacts.add(rootArtifact);
+        }
+        if (indexKey != null && visitor.isIndexable()) {
+            storeInDescriptorIndex(indexKey, artifacts, visitor.getRelocations(), context);
+        }
+        return toArtifactsWithRepoType(artifacts, context);
+    }
+
+    private Set<ArtifactWithRepoType> toArtifactsWithRepoType(Set<Artifact> collectedArtifacts, RepositoryType context) {
         Set<ArtifactWithRepoType> artifacts = new HashSet<>();
-        for (Artifact visitorArtifact : visitorArtifacts) {
-            if (!isReactorArtifact(visitorArtifact)) {
-                artifacts.add(new ArtifactWithRepoType(visitorArtifact, context));
+        for (Artifact collectedArtifact : collectedArtifacts) {
+            if (!isReactorArtifact(collectedArtifact)) {
+                artifacts.add(new ArtifactWithRepoType(collectedArtifact, context));
             }
         }
-        Artifact rootArtifact = collectResult.getRoot().getArtifact();
-        if (!isReactorArtifact(rootArtifact)) {
-            artifacts.add(new ArtifactWithRepoType(rootArtifact, context));
-        }
         return artifacts;
     }
 
+    /**
+     * Store a collect result in the descriptor index. The entry depends on the POMs of all collected artifacts and relocations together with
+     * their parent POMs and imported BOMs. Results containing snapshots are not stored, since a snapshot can change without its POM
+     * in the local repository changing. Results containing reactor artifacts depend on all POMs of the reactor.
+     */
+    private void storeInDescriptorIndex(String indexKey, Set<Artifact> artifacts, Set<Artifact> relocations, RepositoryType context) {
+        Map<Artifact, File> poms = new HashMap<>();
+        boolean containsReactorArtifact = false;
+        Set<Artifact> pomArtifacts = new HashSet<>(artifacts);
+        pomArtifacts.addAll(relocations);
+        for (Artifact artifact : pomArtifacts) {
+            if (artifact.isSnapshot()) {
+                return;
+            }
+            if (isReactorArtifact(artifact)) {
+                containsReactorArtifact = true;
+                continue;
+            }
+            if (!addPomClosure(toPomArtifact(artifact), context, poms)) {
+                return;
+            }
+        }
+        Set<File> pomFiles = new HashSet<>(poms.values());
+        if (containsReactorArtifact) {
+            pomFiles.addAll(reactorPomFiles);
+        }
+        try {
+            descriptorIndex.store(indexKey, artifacts, pomFiles);
+        } catch (IOException e) {
+            log.debug("Could not store " + indexKey + " in descriptor index", e);
+        }
+    }
+
+    /**
+     * Add a POM and all POMs it references as parent or imported BOM, directly or indirectly, to the closure.
+     *
+     * @return false if one of the POMs is missing in the local repository or can not be read.
+     */
+    private boolean addPomClosure(Artifact pom, RepositoryType repositoryType, Map<Artifact, File> closure) {
+        PomReferenceResolver pomReferenceResolver = pomReferenceResolvers.get(repositoryType);
+        boolean complete = true;
+        Deque<Artifact> queue = new ArrayDeque<>();
+        queue.add(pom);
+        while (!queue.isEmpty()) {
+            Artifact current = queue.poll();
+            if (closure.containsKey(current)) {
+                continue;
+            }
+            File pomFile = getLocalFile(current);
+            if (!pomFile.isFile()) {
+                complete = false;
+                continue;
+            }
+            closure.put(current, pomFile);
+            try {
+                queue.addAll(pomReferenceResolver.getReferences(pomFile));
+            } catch (ModelBuildingException e) {
+                log.debug("Unable to read parent and imported POMs of " + pomFile, e);
+                complete = false;
+            }
+        }
+        return complete;
+    }
+
+    private static Artifact toPomArtifact(Artifact artifact) {
+        return new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getVersion());
+    }
+
+    /**
+     * Returns the file of an artifact in the local repository. The file does not necessarily exist.
+     *
+     * @param artifact the artifact.
+     * @return the file of the artifact in the local repository.
+     */
+    File getLocalFile(Artifact artifact) {
+        return new File(remoteSession.getLocalRepository().getBasedir(), remoteSession.getLocalRepositoryManager().getPathForLocalArtifact(artifact));
+    }
+
     /**
      * Download a plugin, all of its transitive dependencies and dependencies declared on the plugin declaration.
      * <p>
@@ -258,6 +914,9 @@ public class DependencyDownloader {
      * @return The set of resolved ArtifactRepositoryType pairs
      */
     public Set<ArtifactWithRepoType> resolvePlugin(Plugin plugin) {
+        if (cancelled) {
+            return Collections.emptySet();
+        }
         Artifact pluginArtifact = toArtifact(plugin);
         Dependency pluginDependency = new Dependency(pluginArtifact, null);
         CollectRequest collectRequest = new CollectRequest(pluginDependency, pluginRepositories);
@@ -271,8 +930,7 @@ public class DependencyDownloader {
         collectRequest.setDependencies(pluginDependencies);
 
         try {
-            CollectResult collectResult = repositorySystem.collectDependencies(pluginSession, collectRequest);
-            return getArtifactsFromCollectResult(collectResult, RepositoryType.PLUGIN);
+            return collectArtifacts(pluginSession, collectRequest, RepositoryType.PLUGIN, "plugin");
         } catch (DependencyCollectionException | RuntimeException e) {
             log.error("Error resolving plugin " + plugin.getGroupId() + ":" + plugin.getArtifactId());
             handleRepositoryException(e);
@@ -291,13 +949,10 @@ public class DependencyDownloader {
      * @return The set of resolved ArtifactRepositoryType pairs
      */
     public Set<ArtifactWithRepoType> resolveDynamicDependency(DynamicDependency dynamicDependency) {
-        ArtifactType artifactType = typeRegistry.get(dynamicDependency.getType());
-        DefaultArtifact artifact;
-        if (artifactType == null) {
-            artifact = new DefaultArtifact(dynamicDependency.getGroupId(), dynamicDependency.getArtifactId(), dynamicDependency.getClassifier(), dynamicDependency.getType(), dynamicDependency.getVersion());
-        } else {
-            artifact = new DefaultArtifact(dynamicDependency.getGroupId(), dynamicDependency.getArtifactId(), dynamicDependency.getClassifier(), artifactType.getExtension(), dynamicDependency.getVersion(), artifactType);
+        if (cancelled) {
+            return Collections.emptySet();
         }
+        DefaultArtifact artifact = toArtifact(dynamicDependency);
         CollectRequest collectRequest = new CollectRequest();
         collectRequest.setRoot(new Dependency(artifact, null));
         RepositoryType repositoryType = dynamicDependency.getRepositoryType();
@@ -318,8 +973,7 @@ public class DependencyDownloader {
 
         }
         try {
-            CollectResult collectResult = repositorySystem.collectDependencies(session, collectRequest);
-            return getArtifactsFromCollectResult(collectResult, repositoryType);
+            return collectArtifacts(session, collectRequest, repositoryType, "dynamic dependency");
         } catch (DependencyCollectionException | RuntimeException e) {
             log.error("Error resolving dynamic dependency" + dynamicDependency.getGroupId() + ":" + dynamicDependency.getArtifactId());
             handleRepositoryException(e);
@@ -352,12 +1006,67 @@ public class DependencyDownloader {
         log.error(e.getMessage());
         log.debug(e);
         addToErrorList(e);
+        recordFailedRequests(e);
+        if (isUnrecoverable(e)) {
+            cancel(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if an error makes the remaining work pointless: The cause is unrecoverable or the root artifact of a plugin
+     * or dynamic dependency is missing.
+     */
+    private boolean isUnrecoverable(Exception e) {
+        if (e instanceof ArtifactResolutionException) {
+            for (ArtifactResult result : ((ArtifactResolutionException) e).getResults()) {
+                for (Exception exception : result.getExceptions()) {
+                    if (isUnrecoverable(exception, result.getRequest().getArtifact())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        Artifact artifact = null;
+        for (Throwable t = e; t != null && artifact == null; t = t.getCause()) {
+            if (t instanceof ArtifactDescriptorException) {
+                artifact = ((ArtifactDescriptorException) t).getResult().getRequest().getArtifact();
+            }
+        }
+        return isUnrecoverable(e, artifact);
+    }
+
+    private boolean isUnrecoverable(Exception e, Artifact artifact) {
+        ErrorCause cause = ErrorCause.classify(e);
+        return cause.isUnrecoverable()
+                || cause == ErrorCause.ARTIFACT_NOT_FOUND && artifact != null && rootArtifactIds.contains(ArtifactIdUtils.toId(artifact));
+    }
+
+    private void recordFailedRequests(Exception e) {
+        if (e instanceof ArtifactResolutionException) {
+            for (ArtifactResult result : ((ArtifactResolutionException) e).getResults()) {
+                if (!result.isResolved()) {
+                    Exception cause = result.getExceptions().isEmpty() ? e : result.getExceptions().get(0);
+                    events.requestFailed(String.valueOf(result.getRequest().getArtifact()), ErrorCause.classify(cause), cause.getMessage());
+                }
+            }
+        } else {
+            events.requestFailed(null, ErrorCause.classify(e), e.getMessage());
+        }
     }
 
     private synchronized void addToErrorList(Exception e) {
         errors.add(e);
     }
 
+    private DefaultArtifact toArtifact(DynamicDependency dynamicDependency) {
+        ArtifactType artifactType = typeRegistry.get(dynamicDependency.getType());
+        if (artifactType == null) {
+            return new DefaultArtifact(dynamicDependency.getGroupId(), dynamicDependency.getArtifactId(), dynamicDependency.getClassifier(), dynamicDependency.getType(), dynamicDependency.getVersion());
+        }
+        return new DefaultArtifact(dynamicDependency.getGroupId(), dynamicDependency.getArtifactId(), dynamicDependency.getClassifier(), artifactType.getExtension(), dynamicDependency.getVersion(), artifactType);
+    }
+
     private Artifact toArtifact(Plugin plugin) {
         ArtifactType artifactType = typeRegistry.get(MAVEN_PLUGIN_ARTIFACT_TYPE);
         return new DefaultArtifact(plugin.getGroupId(), plugin.getArtifactId(), artifactType.getClassifier(), artifactType.getExtension(), plugin.getVersion(),
@@ -367,10 +1076,18 @@ public class DependencyDownloader {
     private static class CollectAllDependenciesVisitor implements DependencyVisitor {
 
         private boolean root = true;
+        private boolean indexable = true;
+        private int nodeCount;
         private Set<Artifact> artifacts = new HashSet<>();
+        private Set<Artifact> relocations = new HashSet<>();
 
         @Override
         public boolean visitEnter(DependencyNode node) {
+            nodeCount++;
+            relocations.addAll(node.getRelocations());
+            if (node.getVersionConstraint() != null && node.getVersionConstraint().getRange() != null) {
+                indexable = false;
+            }
             if (root) {
                 root = false;
                 return true;
@@ -386,5 +1103,21 @@ public class DependencyDownloader {
         public Set<Artifact> getArtifacts() {
             return artifacts;
         }
+
+        /**
+         * A result is not indexable if any dependency has been declared with a version range, since a newly released version
+         * would change the result without any of the POMs changing.
+         */
+        public boolean isIndexable() {
+            return indexable;
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        public Set<Artifact> getRelocations() {
+            return relocations;
+        }
     }
 }
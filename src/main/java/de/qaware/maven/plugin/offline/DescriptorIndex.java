@@ -0,0 +1,526 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent index of dependency collection results stored in the local repository.
+ * <p>
+ * Collecting the dependencies of a project or plugin means reading and parsing all POMs in its dependency tree, even if all of them
+ * are already present in the local repository. The index stores the collected artifacts for each collect request together with
+ * the POM files they have been read from. As long as none of those POMs changed, the next run can use the stored artifacts
+ * instead of collecting the dependencies again.
+ * <p>
+ * Profiles of the POMs may be activated by the JDK, the operating system or properties, so the key of an entry also includes the system and
+ * user properties of the session, which contain the JDK version and the operating system. Environment variables are left out, CI servers
+ * set build specific ones (e.g. the build number) which would prevent any reuse; profiles activated by environment variables are not
+ * detected.
+ * <p>
+ * Each entry records the size, modification time and CRC32 checksum of its POM files. An entry is only used if all POM files
+ * still exist and either their size and modification time or their checksum still match. Entries that are corrupt are ignored.
+ * <p>
+ * Each entry also records when it has been used last. Entries that have not been used for 30 days are removed
+ * and at most 10000 entries are kept, so the index does not grow with every project ever built with the local repository.
+ * <p>
+ * The index file has a simple binary layout that can be scanned without decoding the entries. It is read into memory completely and
+ * not kept open, so it can be replaced while the index is in use:
+ * <pre>
+ * int magic, int version, int entryCount
+ * entryCount times: string key, long lastUsed, int bodyLength, body
+ * body: int artifactCount, artifactCount times string coordinates,
+ *       int pomCount, pomCount times: string path, long lastModified, long length, long crc32
+ * string: int byteLength, UTF-8 bytes
+ * </pre>
+ * Concurrent builds sharing one local repository are safe: Updates are merged with the current file content under a file lock
+ * and written to a temporary file that atomically replaces the index, so readers always see a complete file.
+ */
+public class DescriptorIndex {
+
+    private static final int MAGIC = 0x474f4449;
+    private static final int VERSION = 2;
+    private static final int MAX_UNUSED_DAYS = 30;
+    private static final int MAX_ENTRIES = 10000;
+    private static final long LAST_USED_RESOLUTION_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final String INDEX_DIRECTORY = ".go-offline";
+    private static final String INDEX_FILE = "descriptor-index.bin";
+    private static final String LOCK_FILE = "descriptor-index.lock";
+    private static final String ENVIRONMENT_VARIABLE_PREFIX = "env.";
+
+    private final File localRepository;
+    private final File indexFile;
+    private final Log log;
+    private final String properties;
+    private final Map<String, Integer> entryOffsets = new HashMap<>();
+    private final Map<String, Long> entryLastUsed = new HashMap<>();
+    private final Map<String, Entry> newEntries = new LinkedHashMap<>();
+    private final Set<String> usedKeys = new HashSet<>();
+    private ByteBuffer buffer;
+
+    /**
+     * Create an index stored in the given local repository and load the current index file if it exists.
+     *
+     * @param localRepository  the base directory of the local repository.
+     * @param systemProperties the system properties of the session, used to activate profiles.
+     * @param userProperties   the user properties of the session, used to activate profiles.
+     * @param log              used to log problems with the index file.
+     */
+    public DescriptorIndex(File localRepository, Map<String, String> systemProperties, Map<String, String> userProperties, Log log) {
+        this.localRepository = localRepository;
+        this.indexFile = new File(new File(localRepository, INDEX_DIRECTORY), INDEX_FILE);
+        this.log = log;
+        this.properties = sha256(toString(systemProperties) + "user\n" + toString(userProperties));
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read descriptor index " + indexFile + ", ignoring it: " + e.getMessage());
+            log.debug(e);
+            clear();
+        }
+    }
+
+    /**
+     * Compute the key of a collect request. Requests with the same key yield the same collect result as long as none of the involved POMs change.
+     * The key includes the session properties this index has been created with.
+     *
+     * @param collectRequest the collect request.
+     * @param repositoryType the type of the repositories used for the request.
+     * @return the key of the request.
+     */
+    public String keyOf(CollectRequest collectRequest, RepositoryType repositoryType) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(properties).append('\n');
+        sb.append(collectRequest.getRootArtifact()).append('\n');
+        if (collectRequest.getRoot() != null) {
+            appendDependency(sb, collectRequest.getRoot());
+        }
+        for (Dependency dependency : collectRequest.getDependencies()) {
+            appendDependency(sb, dependency);
+        }
+        sb.append("managed\n");
+        for (Dependency dependency : collectRequest.getManagedDependencies()) {
+            appendDependency(sb, dependency);
+        }
+        for (RemoteRepository repository : collectRequest.getRepositories()) {
+            sb.append(repository.getId()).append(' ').append(repository.getUrl()).append('\n');
+        }
+        return repositoryType.name() + ':' + sha256(sb.toString());
+    }
+
+    /**
+     * Look up the stored artifacts of a collect request.
+     *
+     * @param key the key of the collect request, see {@link #keyOf(CollectRequest, RepositoryType)}.
+     * @return the stored artifacts or null if the index contains no valid entry for the key.
+     */
+    public synchronized Set<Artifact> lookup(String key) {
+        Entry entry = newEntries.get(key);
+        if (entry == null) {
+            Integer offset = entryOffsets.get(key);
+            if (offset == null) {
+                return null;
+            }
+            try {
+                entry = readEntry(buffer.duplicate(), offset);
+            } catch (RuntimeException e) {
+                log.debug("Ignoring corrupt descriptor index entry " + key, e);
+                return null;
+            }
+        }
+        for (PomFile pomFile : entry.pomFiles) {
+            if (!pomFile.isUpToDate(localRepository)) {
+                log.debug("Descriptor index entry " + key + " is outdated, " + pomFile.path + " changed");
+                return null;
+            }
+        }
+        Set<Artifact> artifacts = new LinkedHashSet<>();
+        try {
+            for (String coordinates : entry.artifacts) {
+                artifacts.add(new DefaultArtifact(coordinates));
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring corrupt descriptor index entry " + key, e);
+            return null;
+        }
+        usedKeys.add(key);
+        return artifacts;
+    }
+
+    /**
+     * Store the collected artifacts of a collect request.
+     *
+     * @param key       the key of the collect request, see {@link #keyOf(CollectRequest, RepositoryType)}.
+     * @param artifacts the collected artifacts.
+     * @param pomFiles  the POM files the artifacts have been collected from.
+     * @throws IOException if any of the POM files can not be read.
+     */
+    public synchronized void store(String key, Collection<Artifact> artifacts, Collection<File> pomFiles) throws IOException {
+        List<String> coordinates = new ArrayList<>(artifacts.size());
+        for (Artifact artifact : artifacts) {
+            coordinates.add(toCoordinates(artifact));
+        }
+        List<PomFile> poms = new ArrayList<>(pomFiles.size());
+        for (File pomFile : pomFiles) {
+            poms.add(PomFile.of(localRepository, pomFile));
+        }
+        newEntries.put(key, new Entry(coordinates, poms));
+    }
+
+    /**
+     * Merge all entries stored since the index has been loaded into the index file, update when the used entries have been used
+     * last and remove entries that have not been used for a long time.
+     */
+    public synchronized void save() {
+        long now = System.currentTimeMillis();
+        if (newEntries.isEmpty() && !isLastUsedOutdated(now)) {
+            return;
+        }
+        File directory = indexFile.getParentFile();
+        try {
+            Files.createDirectories(directory.toPath());
+            try (FileChannel lockChannel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    merge(directory, now);
+                } finally {
+                    lock.release();
+                }
+            }
+            newEntries.clear();
+            usedKeys.clear();
+            load();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not update descriptor index " + indexFile + ": " + e.getMessage());
+            log.debug(e);
+        }
+    }
+
+    private boolean isLastUsedOutdated(long now) {
+        for (String key : usedKeys) {
+            Long lastUsed = entryLastUsed.get(key);
+            if (lastUsed != null && lastUsed < now - LAST_USED_RESOLUTION_MILLIS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void merge(File directory, long now) throws IOException {
+        // Reload to pick up entries written by concurrent builds since we loaded the index
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Overwriting unreadable descriptor index " + indexFile, e);
+            clear();
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        Map<String, Long> lastUsed = new HashMap<>();
+        for (Map.Entry<String, Integer> offset : entryOffsets.entrySet()) {
+            try {
+                entries.put(offset.getKey(), readEntry(buffer.duplicate(), offset.getValue()));
+                lastUsed.put(offset.getKey(), entryLastUsed.get(offset.getKey()));
+            } catch (RuntimeException e) {
+                log.debug("Removing corrupt descriptor index entry " + offset.getKey(), e);
+            }
+        }
+        for (String key : usedKeys) {
+            if (lastUsed.containsKey(key)) {
+                lastUsed.put(key, now);
+            }
+        }
+        for (Map.Entry<String, Entry> entry : newEntries.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue());
+            lastUsed.put(entry.getKey(), now);
+        }
+        prune(entries, lastUsed, now);
+        File tempFile = File.createTempFile(INDEX_FILE, ".tmp", directory);
+        try {
+            write(tempFile, entries, lastUsed);
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Remove the entries that have not been used for 30 days and the least recently used entries exceeding
+     * the maximum number of entries. Outdated entries are replaced once their request is collected again, but the entries of requests
+     * that are not made anymore, e.g. of old project versions, would stay forever.
+     */
+    private static void prune(Map<String, Entry> entries, final Map<String, Long> lastUsed, long now) {
+        long oldest = now - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        for (Iterator<String> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            if (lastUsed.get(keys.next()) < oldest) {
+                keys.remove();
+            }
+        }
+        if (entries.size() > MAX_ENTRIES) {
+            List<String> keys = new ArrayList<>(entries.keySet());
+            Collections.sort(keys, new Comparator<String>() {
+                @Override
+                public int compare(String key1, String key2) {
+                    return Long.compare(lastUsed.get(key1), lastUsed.get(key2));
+                }
+            });
+            for (String key : keys.subList(0, keys.size() - MAX_ENTRIES)) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        clear();
+        if (!indexFile.isFile()) {
+            return;
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+        if (content.remaining() < 12 || content.getInt() != MAGIC || content.getInt() != VERSION) {
+            throw new IOException("Unknown index format");
+        }
+        int entryCount = content.getInt();
+        for (int i = 0; i < entryCount; i++) {
+            String key = readString(content);
+            long lastUsed = content.getLong();
+            int bodyLength = content.getInt();
+            if (bodyLength < 0 || bodyLength > content.remaining()) {
+                throw new IOException("Index file is truncated");
+            }
+            entryOffsets.put(key, content.position());
+            entryLastUsed.put(key, lastUsed);
+            content.position(content.position() + bodyLength);
+        }
+        buffer = content;
+    }
+
+    private void clear() {
+        entryOffsets.clear();
+        entryLastUsed.clear();
+        buffer = null;
+    }
+
+    private static Entry readEntry(ByteBuffer buffer, int offset) {
+        buffer.position(offset);
+        int artifactCount = readCount(buffer, 4);
+        List<String> artifacts = new ArrayList<>(artifactCount);
+        for (int i = 0; i < artifactCount; i++) {
+            artifacts.add(readString(buffer));
+        }
+        int pomCount = readCount(buffer, 28);
+        List<PomFile> pomFiles = new ArrayList<>(pomCount);
+        for (int i = 0; i < pomCount; i++) {
+            pomFiles.add(new PomFile(readString(buffer), buffer.getLong(), buffer.getLong(), buffer.getLong()));
+        }
+        return new Entry(artifacts, pomFiles);
+    }
+
+    private static void write(File file, Map<String, Entry> entries, Map<String, Long> lastUsed) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(lastUsed.get(entry.getKey()));
+                byte[] body = entry.getValue().toBytes();
+                out.writeInt(body.length);
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Read the number of elements of a list and make sure the remaining content can hold them, so a corrupt file does not allocate huge arrays.
+     */
+    private static int readCount(ByteBuffer buffer, int minElementSize) {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minElementSize > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Returns the properties sorted by name, without the environment variables.
+     */
+    private static String toString(Map<String, String> properties) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> property : new TreeMap<>(properties).entrySet()) {
+            if (!property.getKey().startsWith(ENVIRONMENT_VARIABLE_PREFIX)) {
+                sb.append(property.getKey()).append('=').append(property.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendDependency(StringBuilder sb, Dependency dependency) {
+        sb.append(dependency.getArtifact()).append(' ').append(dependency.getScope()).append(' ').append(dependency.getOptional());
+        for (Exclusion exclusion : dependency.getExclusions()) {
+            sb.append(' ').append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Returns the coordinates of an artifact in the format understood by {@link DefaultArtifact#DefaultArtifact(String)}.
+     *
+     * @param artifact the artifact.
+     * @return the coordinates of the artifact.
+     */
+    static String toCoordinates(Artifact artifact) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(artifact.getGroupId()).append(':').append(artifact.getArtifactId()).append(':').append(artifact.getExtension());
+        if (!artifact.getClassifier().isEmpty()) {
+            sb.append(':').append(artifact.getClassifier());
+        }
+        sb.append(':').append(artifact.getVersion());
+        return sb.toString();
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<String> artifacts;
+        private final List<PomFile> pomFiles;
+
+        Entry(List<String> artifacts, List<PomFile> pomFiles) {
+            this.artifacts = artifacts;
+            this.pomFiles = pomFiles;
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(artifacts.size());
+            for (String artifact : artifacts) {
+                writeString(out, artifact);
+            }
+            out.writeInt(pomFiles.size());
+            for (PomFile pomFile : pomFiles) {
+                writeString(out, pomFile.path);
+                out.writeLong(pomFile.lastModified);
+                out.writeLong(pomFile.length);
+                out.writeLong(pomFile.checksum);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * A POM file an entry depends on. Files inside the local repository are stored relative to it, so the index stays valid if the
+     * local repository is moved, e.g. by a CI cache.
+     */
+    private static final class PomFile {
+
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final long checksum;
+
+        PomFile(String path, long lastModified, long length, long checksum) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        static PomFile of(File localRepository, File file) throws IOException {
+            String path = file.getAbsolutePath();
+            String repositoryPath = localRepository.getAbsolutePath() + File.separator;
+            if (path.startsWith(repositoryPath)) {
+                path = path.substring(repositoryPath.length());
+            }
+            return new PomFile(path, file.lastModified(), file.length(), checksum(file));
+        }
+
+        boolean isUpToDate(File localRepository) {
+            File file = new File(path);
+            if (!file.isAbsolute()) {
+                file = new File(localRepository, path);
+            }
+            if (!file.isFile() || file.length() != length) {
+                return false;
+            }
+            if (file.lastModified() == lastModified) {
+                return true;
+            }
+            try {
+                return checksum(file) == checksum;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private static long checksum(File file) throws IOException {
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[8192];
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    crc.update(chunk, 0, read);
+                }
+            }
+            return crc.getValue();
+        }
+    }
+}
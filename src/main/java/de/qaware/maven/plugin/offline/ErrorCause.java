@@ -0,0 +1,152 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.MetadataNotFoundException;
+import org.eclipse.aether.transfer.NoRepositoryConnectorException;
+import org.eclipse.aether.transfer.RepositoryOfflineException;
+import org.eclipse.aether.transfer.TransferCancelledException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classification of the errors that can occur while collecting and downloading artifacts.
+ * <p>
+ * Used to group errors for reporting and to decide whether an error makes the remaining work pointless.
+ */
+public enum ErrorCause {
+
+    /**
+     * The repository rejected the credentials (or the lack of credentials) of the request.
+     */
+    AUTHORIZATION("Authorization failed", true),
+
+    /**
+     * The repository could not be contacted at all: The host is unknown, refuses connections or does not accept them in time.
+     */
+    REPOSITORY_UNREACHABLE("Repository unreachable", true),
+
+    /**
+     * The repository was contacted but does not contain the requested artifact.
+     */
+    ARTIFACT_NOT_FOUND("Artifact not found", false),
+
+    /**
+     * The repository rejected the request because too many requests have been sent (HTTP status 429).
+     */
+    THROTTLED("Throttled by repository", false),
+
+    /**
+     * The request was cancelled because another request failed in fail-fast mode.
+     */
+    CANCELLED("Cancelled", false),
+
+    /**
+     * Any other error.
+     */
+    OTHER("Other error", false);
+
+    private static final int HTTP_UNAUTHORIZED = 401;
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String CONNECT_TIMED_OUT = "connect timed out";
+    /**
+     * The status of a response as formatted by the http client ("status code: 429, reason phrase: Too Many Requests") and by wagon
+     * ("transfer failed for https://..., status: 429 Too Many Requests").
+     */
+    private static final Pattern HTTP_STATUS_LINE = Pattern.compile("status code: (\\d{3}), reason phrase:|, status: (\\d{3})(?: |$)");
+
+    private final String description;
+    private final boolean unrecoverable;
+
+    ErrorCause(String description, boolean unrecoverable) {
+        this.description = description;
+        this.unrecoverable = unrecoverable;
+    }
+
+    /**
+     * Returns a human readable description of this cause.
+     *
+     * @return a human readable description of this cause.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns true if an error of this cause will most likely make every other request to the same repository fail as well.
+     *
+     * @return true if an error of this cause will most likely make every other request to the same repository fail as well.
+     */
+    public boolean isUnrecoverable() {
+        return unrecoverable;
+    }
+
+    /**
+     * Determine the cause of an error by inspecting the exception and all of its causes.
+     *
+     * @param error the error to classify.
+     * @return the cause of the error, never null.
+     */
+    public static ErrorCause classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TransferCancelledException) {
+                return CANCELLED;
+            }
+            if (t instanceof ArtifactNotFoundException || t instanceof MetadataNotFoundException) {
+                return ARTIFACT_NOT_FOUND;
+            }
+            if (t instanceof NoRepositoryConnectorException || t instanceof RepositoryOfflineException || isConnectFailure(t)) {
+                return REPOSITORY_UNREACHABLE;
+            }
+            String className = t.getClass().getSimpleName();
+            if (className.equals("AuthorizationException") || className.equals("AuthenticationException")) {
+                return AUTHORIZATION;
+            }
+            int status = getHttpStatus(t);
+            if (status == HTTP_UNAUTHORIZED || status == HTTP_FORBIDDEN) {
+                return AUTHORIZATION;
+            }
+            if (status == HTTP_TOO_MANY_REQUESTS) {
+                return THROTTLED;
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Only failures to establish a connection mean that the repository is unreachable. A read timeout on a single large artifact does not.
+     */
+    private static boolean isConnectFailure(Throwable t) {
+        return t instanceof UnknownHostException || t instanceof ConnectException || t instanceof NoRouteToHostException
+                // The http transport reports connect timeouts with its own exception type, HttpURLConnection and wagon with this message
+                || t.getClass().getSimpleName().equals("ConnectTimeoutException")
+                || t instanceof SocketTimeoutException && CONNECT_TIMED_OUT.equals(t.getMessage());
+    }
+
+    /**
+     * Returns the HTTP status of a failed request, or -1 if the error is not caused by an HTTP response. The http transport throws exceptions
+     * that expose the status code, wagon only reports the status line of the response in its message.
+     */
+    private static int getHttpStatus(Throwable t) {
+        try {
+            Method getStatusCode = t.getClass().getMethod("getStatusCode");
+            if (getStatusCode.getReturnType() == int.class) {
+                return (Integer) getStatusCode.invoke(t);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Not an exception of the http transport
+        }
+        Matcher matcher = t.getMessage() != null ? HTTP_STATUS_LINE.matcher(t.getMessage()) : null;
+        if (matcher == null || !matcher.find()) {
+            return -1;
+        }
+        return Integer.parseInt(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+}
@@ -0,0 +1,111 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.eclipse.aether.transfer.MetadataTransferException;
+import org.eclipse.aether.transfer.NoRepositoryConnectorException;
+import org.eclipse.aether.transfer.RepositoryOfflineException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Groups the errors collected by the {@link DependencyDownloader} by {@link ErrorCause} and repository so a user can see
+ * at a glance whether a build failed because of a single broken repository or because of many missing artifacts.
+ */
+public class ErrorReport {
+
+    private static final String UNKNOWN_REPOSITORY = "unknown repository";
+
+    private final Map<ErrorCause, Map<String, Set<String>>> messages = new EnumMap<>(ErrorCause.class);
+
+    /**
+     * Create a report for the given errors.
+     *
+     * @param errors the errors to report.
+     */
+    public ErrorReport(List<Exception> errors) {
+        for (Exception error : errors) {
+            for (Throwable leaf : getLeafErrors(error)) {
+                ErrorCause cause = ErrorCause.classify(leaf);
+                Map<String, Set<String>> byRepository = messages.get(cause);
+                if (byRepository == null) {
+                    byRepository = new TreeMap<>();
+                    messages.put(cause, byRepository);
+                }
+                String repository = getRepository(leaf);
+                Set<String> repositoryMessages = byRepository.get(repository);
+                if (repositoryMessages == null) {
+                    repositoryMessages = new LinkedHashSet<>();
+                    byRepository.put(repository, repositoryMessages);
+                }
+                repositoryMessages.add(String.valueOf(leaf.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Write the report to the log. Requests that were only cancelled as a consequence of another error are summarized in a single line.
+     *
+     * @param log the log to write to.
+     */
+    public void log(Log log) {
+        for (Map.Entry<ErrorCause, Map<String, Set<String>>> causeEntry : messages.entrySet()) {
+            ErrorCause cause = causeEntry.getKey();
+            for (Map.Entry<String, Set<String>> repositoryEntry : causeEntry.getValue().entrySet()) {
+                Set<String> repositoryMessages = repositoryEntry.getValue();
+                if (cause == ErrorCause.CANCELLED) {
+                    log.warn(repositoryMessages.size() + " request(s) to " + repositoryEntry.getKey() + " cancelled");
+                    continue;
+                }
+                log.error(cause.getDescription() + " (" + repositoryMessages.size() + ") in " + repositoryEntry.getKey() + ":");
+                for (String message : repositoryMessages) {
+                    log.error("    " + message);
+                }
+            }
+        }
+    }
+
+    private static List<Throwable> getLeafErrors(Exception error) {
+        List<Throwable> leafs = new ArrayList<>();
+        if (error instanceof ArtifactResolutionException) {
+            for (ArtifactResult result : ((ArtifactResolutionException) error).getResults()) {
+                leafs.addAll(result.getExceptions());
+            }
+        } else if (error instanceof DependencyCollectionException && ((DependencyCollectionException) error).getResult() != null) {
+            leafs.addAll(((DependencyCollectionException) error).getResult().getExceptions());
+        }
+        if (leafs.isEmpty()) {
+            leafs.add(error);
+        }
+        return leafs;
+    }
+
+    private static String getRepository(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            RemoteRepository repository = null;
+            if (t instanceof ArtifactTransferException) {
+                repository = ((ArtifactTransferException) t).getRepository();
+            } else if (t instanceof MetadataTransferException) {
+                repository = ((MetadataTransferException) t).getRepository();
+            } else if (t instanceof NoRepositoryConnectorException) {
+                repository = ((NoRepositoryConnectorException) t).getRepository();
+            } else if (t instanceof RepositoryOfflineException) {
+                repository = ((RepositoryOfflineException) t).getRepository();
+            }
+            if (repository != null) {
+                return repository.getId() + " (" + repository.getUrl() + ")";
+            }
+        }
+        return UNKNOWN_REPOSITORY;
+    }
+}
@@ -0,0 +1,49 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+
+/**
+ * Transfer listener used in fail-fast mode.
+ * <p>
+ * Cancels the {@link DependencyDownloader} as soon as a transfer fails with an {@link ErrorCause#isUnrecoverable() unrecoverable} error
+ * and aborts all transfers that are still in flight or started afterwards.
+ */
+class FailFastTransferListener extends AbstractTransferListener {
+
+    private final DependencyDownloader dependencyDownloader;
+
+    FailFastTransferListener(DependencyDownloader dependencyDownloader) {
+        this.dependencyDownloader = dependencyDownloader;
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+        checkCancelled();
+    }
+
+    @Override
+    public void transferStarted(TransferEvent event) throws TransferCancelledException {
+        checkCancelled();
+    }
+
+    @Override
+    public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+        checkCancelled();
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        Exception exception = event.getException();
+        if (exception != null && ErrorCause.classify(exception).isUnrecoverable()) {
+            dependencyDownloader.cancel(exception.getMessage());
+        }
+    }
+
+    private void checkCancelled() throws TransferCancelledException {
+        if (dependencyDownloader.isCancelled()) {
+            throw new TransferCancelledException("Cancelled after unrecoverable error");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The complete set of resolved artifacts of a build together with their SHA-256 checksums.
+ * <p>
+ * A lockfile is written after a regular run and committed to the project. On a machine with an empty local repository, the artifacts
+ * can then be downloaded directly from the lockfile without collecting the dependency trees first.
+ * <p>
+ * The file is a sorted text file with one artifact per line, so it produces readable diffs:
+ * <pre>
+ * MAIN com.google.guava:guava:jar:31.1-jre a5f3ae6c...
+ * PLUGIN org.apache.maven.plugins:maven-compiler-plugin:jar:3.10.1 9e6d1b2a...
+ * MAIN com.example:library:jar:1.0-SNAPSHOT unverified
+ * </pre>
+ * Snapshots change with every deployment, so their checksums are not recorded. They are downloaded but not verified.
+ */
+public class Lockfile {
+
+    private static final String HEADER = "# go-offline-maven-plugin lockfile v1";
+    private static final String UNVERIFIED = "unverified";
+
+    private final Map<String, ArtifactWithRepoType> artifacts = new TreeMap<>();
+    private final Map<String, String> checksums = new TreeMap<>();
+
+    /**
+     * Add an artifact to the lockfile.
+     *
+     * @param artifact the artifact to add.
+     * @param checksum the SHA-256 checksum of the artifact file or null if the artifact is not verified.
+     */
+    public void add(ArtifactWithRepoType artifact, String checksum) {
+        String key = toKey(artifact);
+        artifacts.put(key, artifact);
+        checksums.put(key, checksum != null ? checksum : UNVERIFIED);
+    }
+
+    /**
+     * Returns all artifacts contained in the lockfile.
+     *
+     * @return all artifacts contained in the lockfile.
+     */
+    public Set<ArtifactWithRepoType> getArtifacts() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(artifacts.values()));
+    }
+
+    /**
+     * Returns the checksum of an artifact.
+     *
+     * @param artifact the artifact.
+     * @return the SHA-256 checksum of the artifact or null if the artifact is not verified or not contained in the lockfile.
+     */
+    public String getChecksum(ArtifactWithRepoType artifact) {
+        String checksum = checksums.get(toKey(artifact));
+        return UNVERIFIED.equals(checksum) ? null : checksum;
+    }
+
+    /**
+     * Read a lockfile.
+     *
+     * @param file the file to read.
+     * @return the lockfile.
+     * @throws IOException if the file can not be read or is not a valid lockfile.
+     */
+    public static Lockfile read(File file) throws IOException {
+        Lockfile lockfile = new Lockfile();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException(file + " is not a go-offline-maven-plugin lockfile");
+            }
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(" ");
+                if (parts.length != 3) {
+                    throw new IOException("Invalid line " + lineNumber + " in lockfile " + file + ": " + line);
+                }
+                try {
+                    lockfile.add(new ArtifactWithRepoType(new DefaultArtifact(parts[1]), RepositoryType.valueOf(parts[0])), parts[2]);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid line " + lineNumber + " in lockfile " + file + ": " + line, e);
+                }
+            }
+        }
+        return lockfile;
+    }
+
+    /**
+     * Write the lockfile.
+     *
+     * @param file the file to write to.
+     * @throws IOException if the file can not be written.
+     */
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Map.Entry<String, String> entry : checksums.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(entry.getValue());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Compute the SHA-256 checksum of a file.
+     *
+     * @param file the file.
+     * @return the checksum as lower case hex string.
+     * @throws IOException if the file can not be read.
+     */
+    public static String checksum(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+        byte[] chunk = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                digest.update(chunk, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static String toKey(ArtifactWithRepoType artifact) {
+        return artifact.getRepositoryType().name() + ' ' + DescriptorIndex.toCoordinates(artifact.getArtifact());
+    }
+}
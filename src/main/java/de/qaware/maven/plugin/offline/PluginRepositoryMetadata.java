@@ -0,0 +1,172 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.Xpp3DomWriter;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Repository metadata for the maven plugins served by the {@link RepositoryServer}.
+ * <p>
+ * Maven resolves goal prefixes like {@code dependency} in {@code mvn dependency:tree} with the group level metadata of the plugin groups
+ * (e.g. {@code org/apache/maven/plugins/maven-metadata.xml}) and the version of plugins that are not configured in the POM with the
+ * artifact level metadata (e.g. {@code org/apache/maven/plugins/maven-dependency-plugin/maven-metadata.xml}). Both are created for the
+ * added plugins, the artifact level metadata only lists the versions that have been added. The metadata is written as plain XML in the
+ * format of the repository metadata, since the plugin entries of the metadata model are deprecated.
+ */
+class PluginRepositoryMetadata {
+
+    private static final String PLUGIN_DESCRIPTOR = "META-INF/maven/plugin.xml";
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final String TIMESTAMP_FORMAT = "yyyyMMddHHmmss";
+
+    /**
+     * The plugin elements of each group by their artifactId.
+     */
+    private final Map<String, Map<String, Xpp3Dom>> plugins = new TreeMap<>();
+    /**
+     * The versions of each plugin by groupId and artifactId.
+     */
+    private final Map<String, Set<String>> versions = new TreeMap<>();
+
+    /**
+     * Add an artifact if it is a maven plugin, i.e. a jar that contains a plugin descriptor.
+     *
+     * @param artifact the artifact.
+     * @param file     the file of the artifact.
+     * @return true if the artifact is a maven plugin and has been added.
+     * @throws IOException if the artifact file or its plugin descriptor can not be read.
+     */
+    boolean addArtifact(Artifact artifact, File file) throws IOException {
+        if (!"jar".equals(artifact.getExtension()) || !artifact.getClassifier().isEmpty() || artifact.isSnapshot()) {
+            return false;
+        }
+        Xpp3Dom descriptor = readPluginDescriptor(file);
+        if (descriptor == null || descriptor.getChild("goalPrefix") == null) {
+            return false;
+        }
+        Map<String, Xpp3Dom> groupPlugins = plugins.get(artifact.getGroupId());
+        if (groupPlugins == null) {
+            groupPlugins = new TreeMap<>();
+            plugins.put(artifact.getGroupId(), groupPlugins);
+        }
+        Xpp3Dom name = descriptor.getChild("name");
+        Xpp3Dom plugin = new Xpp3Dom("plugin");
+        addChild(plugin, "name", name != null ? name.getValue() : artifact.getArtifactId());
+        addChild(plugin, "prefix", descriptor.getChild("goalPrefix").getValue());
+        addChild(plugin, "artifactId", artifact.getArtifactId());
+        groupPlugins.put(artifact.getArtifactId(), plugin);
+
+        String key = artifact.getGroupId() + ':' + artifact.getArtifactId();
+        Set<String> pluginVersions = versions.get(key);
+        if (pluginVersions == null) {
+            pluginVersions = new HashSet<>();
+            versions.put(key, pluginVersions);
+        }
+        pluginVersions.add(artifact.getVersion());
+        return true;
+    }
+
+    /**
+     * Returns the metadata files of the added plugins.
+     *
+     * @return the content of the metadata files by their path relative to the repository root.
+     */
+    Map<String, byte[]> getFiles() {
+        Map<String, byte[]> files = new HashMap<>();
+        for (Map.Entry<String, Map<String, Xpp3Dom>> group : plugins.entrySet()) {
+            Xpp3Dom groupPlugins = new Xpp3Dom("plugins");
+            for (Xpp3Dom plugin : group.getValue().values()) {
+                groupPlugins.addChild(new Xpp3Dom(plugin));
+            }
+            Xpp3Dom metadata = new Xpp3Dom("metadata");
+            metadata.addChild(groupPlugins);
+            files.put(group.getKey().replace('.', '/') + '/' + METADATA_FILE, write(metadata));
+        }
+        SimpleDateFormat timestampFormat = new SimpleDateFormat(TIMESTAMP_FORMAT);
+        timestampFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String lastUpdated = timestampFormat.format(new Date());
+        for (Map.Entry<String, Set<String>> plugin : versions.entrySet()) {
+            String[] coordinates = plugin.getKey().split(":");
+            List<String> sortedVersions = new ArrayList<>(plugin.getValue());
+            Collections.sort(sortedVersions, new Comparator<String>() {
+                @Override
+                public int compare(String o1, String o2) {
+                    return new ComparableVersion(o1).compareTo(new ComparableVersion(o2));
+                }
+            });
+            String latestVersion = sortedVersions.get(sortedVersions.size() - 1);
+            Xpp3Dom versioning = new Xpp3Dom("versioning");
+            addChild(versioning, "latest", latestVersion);
+            addChild(versioning, "release", latestVersion);
+            Xpp3Dom versionList = new Xpp3Dom("versions");
+            for (String version : sortedVersions) {
+                addChild(versionList, "version", version);
+            }
+            versioning.addChild(versionList);
+            addChild(versioning, "lastUpdated", lastUpdated);
+            Xpp3Dom metadata = new Xpp3Dom("metadata");
+            addChild(metadata, "groupId", coordinates[0]);
+            addChild(metadata, "artifactId", coordinates[1]);
+            metadata.addChild(versioning);
+            files.put(coordinates[0].replace('.', '/') + '/' + coordinates[1] + '/' + METADATA_FILE, write(metadata));
+        }
+        return files;
+    }
+
+    private static void addChild(Xpp3Dom parent, String name, String value) {
+        Xpp3Dom child = new Xpp3Dom(name);
+        child.setValue(value);
+        parent.addChild(child);
+    }
+
+    private static Xpp3Dom readPluginDescriptor(File file) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            JarEntry entry = jar.getJarEntry(PLUGIN_DESCRIPTOR);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = jar.getInputStream(entry)) {
+                return Xpp3DomBuilder.build(in, StandardCharsets.UTF_8.name());
+            }
+        } catch (XmlPullParserException e) {
+            throw new IOException("Invalid plugin descriptor in " + file, e);
+        }
+    }
+
+    private static byte[] write(Xpp3Dom metadata) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            Xpp3DomWriter.write(writer, metadata);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write metadata to memory", e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.building.DefaultModelBuildingRequest;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelBuilder;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.model.building.ModelBuildingRequest;
+import org.apache.maven.model.building.ModelBuildingResult;
+import org.apache.maven.model.building.ModelCache;
+import org.apache.maven.model.resolution.ModelResolver;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Determines the parent POMs and imported BOMs a POM references.
+ * <p>
+ * The references are taken from the model built by the {@link ModelBuilder} the same way the resolver builds it when it reads the
+ * descriptor of an artifact, so the coordinates of imported BOMs are interpolated with the properties inherited from the parents
+ * and with the properties of active profiles. Only the first phase of the model building is run: Its result still contains the
+ * imports, which are replaced by the imported dependency management in the second phase.
+ * <p>
+ * The references of each POM file are cached.
+ */
+class PomReferenceResolver {
+
+    private static final String IMPORT_SCOPE = "import";
+    private static final String POM_TYPE = "pom";
+
+    private final ModelBuilder modelBuilder;
+    private final ModelResolver modelResolver;
+    private final ModelCache modelCache;
+    private final Properties systemProperties;
+    private final Properties userProperties;
+    private final Map<File, List<Artifact>> references = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new resolver.
+     *
+     * @param modelBuilder     the model builder.
+     * @param modelResolver    resolves parent POMs and imported BOMs, a copy is used for each model.
+     * @param modelCache       the cache of the model builder.
+     * @param systemProperties the system properties used for interpolation and profile activation.
+     * @param userProperties   the user properties used for interpolation and profile activation.
+     */
+    PomReferenceResolver(ModelBuilder modelBuilder, ModelResolver modelResolver, ModelCache modelCache, Properties systemProperties, Properties userProperties) {
+        this.modelBuilder = modelBuilder;
+        this.modelResolver = modelResolver;
+        this.modelCache = modelCache;
+        this.systemProperties = systemProperties;
+        this.userProperties = userProperties;
+    }
+
+    /**
+     * Returns the POMs referenced by a POM: all of its ancestors and the BOMs imported by it or one of its ancestors.
+     * The references of the imported BOMs are not included.
+     *
+     * @param pomFile the POM file.
+     * @return the referenced POM artifacts.
+     * @throws ModelBuildingException if the model of the POM can not be built, e.g. because a parent POM can not be resolved.
+     */
+    List<Artifact> getReferences(File pomFile) throws ModelBuildingException {
+        List<Artifact> cached = references.get(pomFile);
+        if (cached != null) {
+            return cached;
+        }
+        ModelBuildingRequest request = new DefaultModelBuildingRequest();
+        request.setModelSource(new FileModelSource(pomFile));
+        request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+        request.setProcessPlugins(false);
+        request.setTwoPhaseBuilding(true);
+        request.setLocationTracking(false);
+        request.setSystemProperties(systemProperties);
+        request.setUserProperties(userProperties);
+        request.setModelCache(modelCache);
+        request.setModelResolver(modelResolver.newCopy());
+        ModelBuildingResult result = modelBuilder.build(request);
+
+        List<Artifact> pomReferences = new ArrayList<>();
+        List<String> modelIds = result.getModelIds();
+        // The first model is the POM itself, the super POM has an empty id
+        for (String modelId : modelIds.subList(1, modelIds.size())) {
+            String[] coordinates = modelId.split(":");
+            if (coordinates.length == 3) {
+                pomReferences.add(new DefaultArtifact(coordinates[0], coordinates[1], POM_TYPE, coordinates[2]));
+            }
+        }
+        DependencyManagement dependencyManagement = result.getEffectiveModel().getDependencyManagement();
+        if (dependencyManagement != null) {
+            for (Dependency dependency : dependencyManagement.getDependencies()) {
+                if (IMPORT_SCOPE.equals(dependency.getScope()) && POM_TYPE.equals(dependency.getType())) {
+                    pomReferences.add(new DefaultArtifact(dependency.getGroupId(), dependency.getArtifactId(), POM_TYPE, dependency.getVersion()));
+                }
+            }
+        }
+        pomReferences = Collections.unmodifiableList(pomReferences);
+        references.put(pomFile, pomReferences);
+        return pomReferences;
+    }
+}
@@ -0,0 +1,443 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.building.DefaultModelBuildingRequest;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelBuilder;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.model.building.ModelBuildingRequest;
+import org.apache.maven.model.building.ModelCache;
+import org.apache.maven.model.building.ModelSource2;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.resolution.InvalidRepositoryException;
+import org.apache.maven.model.resolution.ModelResolver;
+import org.apache.maven.model.resolution.UnresolvableModelException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectModelResolver;
+import org.codehaus.plexus.component.annotations.Component;
+import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the module tree of a build from the POM files without building the maven projects.
+ * <p>
+ * Building the projects of a reactor resolves the dependencies of each project and is slow for builds with many modules.
+ * The scanner only builds the effective models, in parallel and with a shared model cache, which contain everything the
+ * {@link DependencyDownloader} needs: dependencies, dependency management and build plugins.
+ * <p>
+ * The scanner must be initialized by calling {@link #init(ProjectBuildingRequest, Log)} before {@link #scan(Collection)} may be used.
+ */
+@Component(role = ReactorScanner.class, hint = "default")
+public class ReactorScanner {
+
+    private static final Pattern PROPERTY_REFERENCE = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * Maven model builder
+     */
+    @Requirement
+    private ModelBuilder modelBuilder;
+
+    /**
+     * Aether repository system
+     */
+    @Requirement
+    private RepositorySystem repositorySystem;
+
+    /**
+     * Aether remote repository manager
+     */
+    @Requirement
+    private RemoteRepositoryManager remoteRepositoryManager;
+
+    /**
+     * Maven artifact handler manager
+     */
+    @Requirement
+    private ArtifactHandlerManager artifactHandlerManager;
+
+    private ProjectBuildingRequest buildingRequest;
+    private List<RemoteRepository> remoteRepositories;
+    private ModelCache modelCache;
+    private Log log;
+
+    ReactorScanner() {
+        // Noop
+    }
+
+    /**
+     * Create a scanner that uses the given components instead of injected ones.
+     */
+    ReactorScanner(ModelBuilder modelBuilder, RepositorySystem repositorySystem, RemoteRepositoryManager remoteRepositoryManager,
+                   ArtifactHandlerManager artifactHandlerManager) {
+        this.modelBuilder = modelBuilder;
+        this.repositorySystem = repositorySystem;
+        this.remoteRepositoryManager = remoteRepositoryManager;
+        this.artifactHandlerManager = artifactHandlerManager;
+    }
+
+    /**
+     * Initialize the ReactorScanner
+     *
+     * @param buildingRequest a buildingRequest containing the maven session, profiles and properties used to build the models.
+     * @param logger          used to log infos and warnings.
+     */
+    public void init(ProjectBuildingRequest buildingRequest, Log logger) {
+        this.buildingRequest = buildingRequest;
+        this.log = logger;
+        this.remoteRepositories = RepositoryUtils.toRepos(buildingRequest.getRemoteRepositories());
+        this.modelCache = new ConcurrentModelCache();
+    }
+
+    /**
+     * Read the given POM files and all of their modules.
+     * <p>
+     * Modules declared in profiles are only included if the profile is active.
+     *
+     * @param rootPomFiles the POM files to start with.
+     * @return lightweight projects containing the effective model of each module, in the order they have been found.
+     * @throws ModelBuildingException if the model of one of the modules can not be built.
+     * @throws IOException            if one of the POM files can not be read.
+     */
+    public List<MavenProject> scan(Collection<File> rootPomFiles) throws ModelBuildingException, IOException {
+        long start = System.currentTimeMillis();
+        // Modules of all profiles are read here, the effective models tell us below which of them are active
+        Map<File, Model> rawModels = readModuleTree(rootPomFiles);
+        Map<String, File> reactorPoms = new ConcurrentHashMap<>();
+        for (Map.Entry<File, Model> rawModel : rawModels.entrySet()) {
+            String key = getReactorKey(rawModel.getKey(), rawModel.getValue(), rawModels);
+            if (key != null) {
+                reactorPoms.put(key, rawModel.getKey());
+            }
+        }
+
+        Map<File, Future<Model>> effectiveModels = buildEffectiveModels(rawModels.keySet(), reactorPoms);
+
+        List<MavenProject> projects = new ArrayList<>();
+        Set<File> visited = new LinkedHashSet<>();
+        Deque<File> pending = new ArrayDeque<>();
+        for (File rootPomFile : rootPomFiles) {
+            pending.add(rootPomFile.getCanonicalFile());
+        }
+        while (!pending.isEmpty()) {
+            File pomFile = pending.poll();
+            Future<Model> effectiveModel = effectiveModels.get(pomFile);
+            if (effectiveModel == null || !visited.add(pomFile)) {
+                continue;
+            }
+            Model model = getEffectiveModel(effectiveModel, pomFile);
+            projects.add(toProject(model, pomFile));
+            for (String module : model.getModules()) {
+                pending.add(toModulePom(pomFile, module));
+            }
+        }
+        log.info("Scanned " + projects.size() + " modules in " + (System.currentTimeMillis() - start) + " ms");
+        return projects;
+    }
+
+    /**
+     * Read the raw models of the given POM files and all of their modules. The modules of each level of the tree are read in parallel.
+     *
+     * @return the raw model per POM file, in the order the POM files have been found.
+     */
+    private Map<File, Model> readModuleTree(Collection<File> rootPomFiles) throws IOException {
+        Map<File, Model> models = new LinkedHashMap<>();
+        List<File> level = new ArrayList<>();
+        for (File rootPomFile : rootPomFiles) {
+            level.add(rootPomFile.getCanonicalFile());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            while (!level.isEmpty()) {
+                Map<File, Future<Model>> futures = new LinkedHashMap<>();
+                for (final File pomFile : level) {
+                    if (models.containsKey(pomFile) || futures.containsKey(pomFile)) {
+                        continue;
+                    }
+                    if (!pomFile.isFile()) {
+                        log.debug("Skipping missing module " + pomFile);
+                        continue;
+                    }
+                    futures.put(pomFile, executor.submit(new Callable<Model>() {
+                        @Override
+                        public Model call() throws IOException {
+                            return readRawModel(pomFile);
+                        }
+                    }));
+                }
+                List<File> nextLevel = new ArrayList<>();
+                for (Map.Entry<File, Future<Model>> future : futures.entrySet()) {
+                    File pomFile = future.getKey();
+                    Model model = getRawModel(future.getValue(), pomFile);
+                    models.put(pomFile, model);
+                    Set<String> modules = new LinkedHashSet<>(model.getModules());
+                    for (Profile profile : model.getProfiles()) {
+                        modules.addAll(profile.getModules());
+                    }
+                    for (String module : modules) {
+                        nextLevel.add(toModulePom(pomFile, module));
+                    }
+                }
+                level = nextLevel;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return models;
+    }
+
+    private static Model readRawModel(File pomFile) throws IOException {
+        try (InputStream in = Files.newInputStream(pomFile.toPath())) {
+            return new MavenXpp3Reader().read(in, false);
+        } catch (XmlPullParserException e) {
+            throw new IOException("Unable to parse " + pomFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Model getRawModel(Future<Model> future, File pomFile) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to read " + pomFile, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + pomFile, e);
+        }
+    }
+
+    /**
+     * Build the effective models of all POM files in parallel.
+     *
+     * @return the model or the exception thrown while building the model per POM file.
+     */
+    private Map<File, Future<Model>> buildEffectiveModels(Collection<File> pomFiles, final Map<String, File> reactorPoms) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(pomFiles.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            Map<File, Future<Model>> futures = new LinkedHashMap<>();
+            for (final File pomFile : pomFiles) {
+                futures.put(pomFile, executor.submit(new Callable<Model>() {
+                    @Override
+                    public Model call() throws ModelBuildingException {
+                        return buildEffectiveModel(pomFile, reactorPoms);
+                    }
+                }));
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out while building the effective models");
+            }
+            return futures;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building the effective models", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the effective model of a module. Building the model of a module in an inactive profile may fail without failing the scan,
+     * so the exception is only thrown once the module turns out to be part of the build.
+     */
+    private static Model getEffectiveModel(Future<Model> future, File pomFile) throws ModelBuildingException, IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ModelBuildingException) {
+                throw (ModelBuildingException) e.getCause();
+            }
+            throw new IOException("Unable to build model of " + pomFile, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while building model of " + pomFile, e);
+        }
+    }
+
+    private Model buildEffectiveModel(File pomFile, Map<String, File> reactorPoms) throws ModelBuildingException {
+        ModelBuildingRequest request = new DefaultModelBuildingRequest();
+        request.setPomFile(pomFile);
+        request.setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+        request.setProcessPlugins(true);
+        request.setLocationTracking(false);
+        request.setSystemProperties(buildingRequest.getSystemProperties());
+        request.setUserProperties(buildingRequest.getUserProperties());
+        request.setProfiles(buildingRequest.getProfiles());
+        request.setActiveProfileIds(buildingRequest.getActiveProfileIds());
+        request.setInactiveProfileIds(buildingRequest.getInactiveProfileIds());
+        request.setBuildStartTime(buildingRequest.getBuildStartTime());
+        request.setModelCache(modelCache);
+        request.setModelResolver(new ReactorModelResolver(newProjectModelResolver(), reactorPoms));
+        return modelBuilder.build(request).getEffectiveModel();
+    }
+
+    private ModelResolver newProjectModelResolver() {
+        return new ProjectModelResolver(buildingRequest.getRepositorySession(), null, repositorySystem, remoteRepositoryManager, remoteRepositories,
+                buildingRequest.getRepositoryMerging(), null);
+    }
+
+    private MavenProject toProject(Model model, File pomFile) {
+        MavenProject project = new MavenProject(model);
+        project.setFile(pomFile);
+        project.setArtifact(new DefaultArtifact(model.getGroupId(), model.getArtifactId(), model.getVersion(), null, model.getPackaging(), null,
+                artifactHandlerManager.getArtifactHandler(model.getPackaging())));
+        return project;
+    }
+
+    /**
+     * Returns the coordinates of a raw model, used to find reactor POMs that are imported or used as parent without a relative path.
+     *
+     * @return the coordinates or null if they can not be determined without building the model.
+     */
+    private String getReactorKey(File pomFile, Model model, Map<File, Model> rawModels) throws IOException {
+        Parent parent = model.getParent();
+        String groupId = model.getGroupId() != null ? model.getGroupId() : parent != null ? parent.getGroupId() : null;
+        String version = model.getVersion() != null ? model.getVersion() : parent != null ? parent.getVersion() : null;
+        if (groupId == null || version == null) {
+            return null;
+        }
+        version = interpolate(version, getInheritedProperties(pomFile, model, rawModels));
+        if (version.contains("${")) {
+            return null;
+        }
+        return groupId + ':' + model.getArtifactId() + ':' + version;
+    }
+
+    /**
+     * Returns the properties of a raw model including the properties inherited from parents in the reactor, e.g. for CI friendly versions.
+     */
+    private static Properties getInheritedProperties(File pomFile, Model model, Map<File, Model> rawModels) throws IOException {
+        Properties properties = new Properties();
+        Set<File> visited = new LinkedHashSet<>();
+        while (model != null && visited.add(pomFile)) {
+            for (String name : model.getProperties().stringPropertyNames()) {
+                if (!properties.containsKey(name)) {
+                    properties.setProperty(name, model.getProperties().getProperty(name));
+                }
+            }
+            Parent parent = model.getParent();
+            if (parent == null || parent.getRelativePath() == null || parent.getRelativePath().isEmpty()) {
+                break;
+            }
+            pomFile = toModulePom(pomFile, parent.getRelativePath());
+            model = rawModels.get(pomFile);
+        }
+        return properties;
+    }
+
+    private String interpolate(String value, Properties modelProperties) {
+        Matcher matcher = PROPERTY_REFERENCE.matcher(value);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String replacement = buildingRequest.getUserProperties().getProperty(name, modelProperties.getProperty(name));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static File toModulePom(File pomFile, String module) throws IOException {
+        File moduleFile = new File(pomFile.getParentFile(), module.replace('\\', File.separatorChar).replace('/', File.separatorChar));
+        if (moduleFile.isDirectory()) {
+            moduleFile = new File(moduleFile, "pom.xml");
+        }
+        return moduleFile.getCanonicalFile();
+    }
+
+    /**
+     * Model resolver that resolves POMs of the reactor from the file system and all other POMs from the repositories.
+     * <p>
+     * The delegate is a {@link ProjectModelResolver}, which returns {@link FileModelSource}s for the resolved POMs.
+     */
+    private static final class ReactorModelResolver implements ModelResolver {
+
+        private final ModelResolver delegate;
+        private final Map<String, File> reactorPoms;
+
+        ReactorModelResolver(ModelResolver delegate, Map<String, File> reactorPoms) {
+            this.delegate = delegate;
+            this.reactorPoms = reactorPoms;
+        }
+
+        @Override
+        public ModelSource2 resolveModel(String groupId, String artifactId, String version) throws UnresolvableModelException {
+            File pomFile = reactorPoms.get(groupId + ':' + artifactId + ':' + version);
+            if (pomFile != null) {
+                return new FileModelSource(pomFile);
+            }
+            return (ModelSource2) delegate.resolveModel(groupId, artifactId, version);
+        }
+
+        @Override
+        public ModelSource2 resolveModel(Parent parent) throws UnresolvableModelException {
+            File pomFile = reactorPoms.get(parent.getGroupId() + ':' + parent.getArtifactId() + ':' + parent.getVersion());
+            if (pomFile != null) {
+                return new FileModelSource(pomFile);
+            }
+            return (ModelSource2) delegate.resolveModel(parent);
+        }
+
+        @Override
+        public ModelSource2 resolveModel(Dependency dependency) throws UnresolvableModelException {
+            File pomFile = reactorPoms.get(dependency.getGroupId() + ':' + dependency.getArtifactId() + ':' + dependency.getVersion());
+            if (pomFile != null) {
+                return new FileModelSource(pomFile);
+            }
+            return (ModelSource2) delegate.resolveModel(dependency);
+        }
+
+        @Override
+        public void addRepository(Repository repository) throws InvalidRepositoryException {
+            delegate.addRepository(repository);
+        }
+
+        @Override
+        public void addRepository(Repository repository, boolean replace) throws InvalidRepositoryException {
+            delegate.addRepository(repository, replace);
+        }
+
+        @Override
+        public ModelResolver newCopy() {
+            return new ReactorModelResolver(delegate.newCopy(), reactorPoms);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package de.qaware.maven.plugin.offline;
+
+/**
+ * The layers the {@link RepositoryLayerWriter} splits the resolved artifacts into. Each layer is written to its own directory,
+ * ordered from the least to the most frequently changing content.
+ */
+public enum RepositoryLayer {
+
+    /**
+     * Releases that have been part of the build for several runs.
+     */
+    STABLE("stable"),
+
+    /**
+     * Releases that have recently been added to the build, e.g. because of a version bump.
+     */
+    RECENT("recent"),
+
+    /**
+     * Snapshots and artifacts with the same groupId as a reactor project, which are likely to change together with the project.
+     */
+    VOLATILE("volatile");
+
+    private final String directoryName;
+
+    RepositoryLayer(String directoryName) {
+        this.directoryName = directoryName;
+    }
+
+    /**
+     * Returns the name of the output directory of the layer.
+     *
+     * @return the name of the output directory of the layer.
+     */
+    public String getDirectoryName() {
+        return directoryName;
+    }
+}
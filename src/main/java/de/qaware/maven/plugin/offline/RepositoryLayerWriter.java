@@ -0,0 +1,299 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Writes the resolved artifacts into separate repository directories, one per {@link RepositoryLayer}.
+ * <p>
+ * Docker images and CI caches are invalidated as a whole if a single file changes. Splitting the repository into layers that change
+ * with different frequencies means the large layer of long stable releases stays the same and can be reused, while only the small layers
+ * of recently changed releases and snapshots need to be rebuilt.
+ * <p>
+ * Each layer directory has the layout of a local repository and contains the complete version directories of its artifacts.
+ * Whether a release is stable is determined from a manifest of the previous runs stored in the output directory: A release is stable once it
+ * has been part of the given number of previous runs. For each layer a SHA-256 hash over the paths and contents of its files is written to
+ * {@code <layer>.sha256}, so unchanged layers can be detected without comparing their content. Bookkeeping files of the resolver are not
+ * part of the layers, so the hashes only change if an artifact changes.
+ */
+public class RepositoryLayerWriter {
+
+    private static final String MANIFEST_FILE = "layers.manifest";
+    private static final String MANIFEST_HEADER = "# go-offline-maven-plugin layers v1";
+    private static final String HASH_FILE_EXTENSION = ".sha256";
+    private static final String REMOTE_REPOSITORIES_FILE = "_remote.repositories";
+    private static final String METADATA_FILE_PREFIX = "maven-metadata-";
+
+    private final File outputDirectory;
+    private final File localRepository;
+    private final int stableRuns;
+    private final Set<String> reactorGroupIds;
+    private final Log log;
+
+    private final Map<String, Integer> previousRuns = new HashMap<>();
+    private final Map<String, FileHash> previousFileHashes = new HashMap<>();
+
+    /**
+     * Create a new writer.
+     *
+     * @param outputDirectory the directory to write the layers to.
+     * @param localRepository the base directory of the local repository the artifacts are copied from.
+     * @param stableRuns      the number of previous runs a release must have been part of to be considered stable.
+     * @param reactorGroupIds the groupIds of the reactor projects.
+     * @param log             used to log the result.
+     */
+    public RepositoryLayerWriter(File outputDirectory, File localRepository, int stableRuns, Set<String> reactorGroupIds, Log log) {
+        this.outputDirectory = outputDirectory;
+        this.localRepository = localRepository;
+        this.stableRuns = stableRuns;
+        this.reactorGroupIds = reactorGroupIds;
+        this.log = log;
+    }
+
+    /**
+     * Write the layers for the given artifacts and update the manifest.
+     *
+     * @param artifacts            the artifacts to write, including the POMs needed to build offline.
+     * @param dependencyDownloader used to locate the artifacts in the local repository.
+     * @throws IOException if the layers can not be written.
+     */
+    public void write(Collection<ArtifactWithRepoType> artifacts, DependencyDownloader dependencyDownloader) throws IOException {
+        readManifest();
+        SortedMap<String, RepositoryLayer> versionDirectories = new TreeMap<>();
+        for (ArtifactWithRepoType artifactWithRepoType : artifacts) {
+            Artifact artifact = artifactWithRepoType.getArtifact();
+            File file = dependencyDownloader.getLocalFile(artifact);
+            if (!file.isFile()) {
+                continue;
+            }
+            String versionDirectory = toRelativePath(localRepository.toPath(), file.getParentFile().toPath());
+            RepositoryLayer layer = classify(artifact, versionDirectory);
+            RepositoryLayer current = versionDirectories.get(versionDirectory);
+            if (current == null || layer.ordinal() > current.ordinal()) {
+                versionDirectories.put(versionDirectory, layer);
+            }
+        }
+
+        Map<RepositoryLayer, SortedMap<String, File>> layerFiles = new EnumMap<>(RepositoryLayer.class);
+        for (RepositoryLayer layer : RepositoryLayer.values()) {
+            layerFiles.put(layer, new TreeMap<String, File>());
+        }
+        for (Map.Entry<String, RepositoryLayer> versionDirectory : versionDirectories.entrySet()) {
+            File[] files = new File(localRepository, versionDirectory.getKey()).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile() && !isTransientFile(file.getName())) {
+                    layerFiles.get(versionDirectory.getValue()).put(versionDirectory.getKey() + '/' + file.getName(), file);
+                }
+            }
+        }
+
+        Map<String, FileHash> fileHashes = new TreeMap<>();
+        Map<RepositoryLayer, String> layerHashes = new EnumMap<>(RepositoryLayer.class);
+        for (RepositoryLayer layer : RepositoryLayer.values()) {
+            SortedMap<String, File> files = layerFiles.get(layer);
+            File layerDirectory = new File(outputDirectory, layer.getDirectoryName());
+            syncLayer(layerDirectory, files);
+            MessageDigest layerDigest = newSha256();
+            for (Map.Entry<String, File> file : files.entrySet()) {
+                String manifestPath = layer.getDirectoryName() + '/' + file.getKey();
+                FileHash fileHash = hash(manifestPath, new File(layerDirectory, file.getKey()));
+                fileHashes.put(manifestPath, fileHash);
+                layerDigest.update((file.getKey() + ' ' + fileHash.sha256 + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            String layerHash = toHex(layerDigest.digest());
+            layerHashes.put(layer, layerHash);
+            Files.write(new File(outputDirectory, layer.getDirectoryName() + HASH_FILE_EXTENSION).toPath(), (layerHash + '\n').getBytes(StandardCharsets.UTF_8));
+            log.info("Wrote " + files.size() + " files to layer " + layer.getDirectoryName() + " (" + layerHash + ")");
+        }
+        writeManifest(versionDirectories.keySet(), fileHashes, layerHashes);
+    }
+
+    private RepositoryLayer classify(Artifact artifact, String versionDirectory) {
+        if (artifact.isSnapshot() || isReactorAdjacent(artifact.getGroupId())) {
+            return RepositoryLayer.VOLATILE;
+        }
+        Integer runs = previousRuns.get(versionDirectory);
+        if (runs != null && runs >= stableRuns) {
+            return RepositoryLayer.STABLE;
+        }
+        return RepositoryLayer.RECENT;
+    }
+
+    private boolean isReactorAdjacent(String groupId) {
+        for (String reactorGroupId : reactorGroupIds) {
+            if (groupId.equals(reactorGroupId) || groupId.startsWith(reactorGroupId + '.')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Files written by the resolver to track update checks, the origin of artifacts ({@code _remote.repositories}) and the remote snapshot
+     * metadata ({@code maven-metadata-<repository>.xml}) change on every run or contain timestamps and would make the layer hashes useless.
+     * They are not needed to build offline: artifacts without origin file are treated as installed locally and snapshots are also stored
+     * under their base version. Incomplete downloads of the resolver and of the {@link ChunkedArtifactDownloader} are left out as well.
+     */
+    private static boolean isTransientFile(String name) {
+        return name.endsWith(".lastUpdated") || name.equals("resolver-status.properties") || name.equals(REMOTE_REPOSITORIES_FILE)
+                || name.startsWith(METADATA_FILE_PREFIX) && name.endsWith(".xml") || name.endsWith(".part") || name.endsWith(".lock")
+                || ChunkedArtifactDownloader.isDownloadFile(name);
+    }
+
+    /**
+     * Make the layer directory contain exactly the given files. Files that are already up to date are not copied again, so their
+     * modification times stay the same.
+     */
+    private static void syncLayer(File layerDirectory, final SortedMap<String, File> files) throws IOException {
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            File source = file.getValue();
+            File target = new File(layerDirectory, file.getKey());
+            if (target.isFile() && target.length() == source.length() && target.lastModified() == source.lastModified()) {
+                continue;
+            }
+            Files.createDirectories(target.getParentFile().toPath());
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+        if (!layerDirectory.isDirectory()) {
+            Files.createDirectories(layerDirectory.toPath());
+            return;
+        }
+        final Path root = layerDirectory.toPath();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!files.containsKey(toRelativePath(root, file))) {
+                    Files.delete(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (!dir.equals(root)) {
+                    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                        if (!entries.iterator().hasNext()) {
+                            Files.delete(dir);
+                        }
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Hash a file, reusing the hash from the previous manifest if the file did not change.
+     */
+    private FileHash hash(String manifestPath, File file) throws IOException {
+        FileHash previous = previousFileHashes.get(manifestPath);
+        if (previous != null && previous.length == file.length() && previous.lastModified == file.lastModified()) {
+            return previous;
+        }
+        return new FileHash(file.length(), file.lastModified(), Lockfile.checksum(file));
+    }
+
+    private void readManifest() throws IOException {
+        previousRuns.clear();
+        previousFileHashes.clear();
+        File manifest = new File(outputDirectory, MANIFEST_FILE);
+        if (!manifest.isFile()) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+            if (!MANIFEST_HEADER.equals(reader.readLine())) {
+                log.warn("Ignoring unknown layer manifest " + manifest);
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                try {
+                    if (parts.length == 3 && parts[0].equals("G")) {
+                        previousRuns.put(parts[2], Integer.parseInt(parts[1]));
+                    } else if (parts.length == 5 && parts[0].equals("F")) {
+                        previousFileHashes.put(parts[4], new FileHash(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]));
+                    }
+                } catch (NumberFormatException e) {
+                    log.debug("Ignoring invalid line in layer manifest: " + line);
+                }
+            }
+        }
+    }
+
+    private void writeManifest(Set<String> versionDirectories, Map<String, FileHash> fileHashes, Map<RepositoryLayer, String> layerHashes) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(new File(outputDirectory, MANIFEST_FILE).toPath(), StandardCharsets.UTF_8)) {
+            writer.write(MANIFEST_HEADER);
+            writer.write('\n');
+            for (Map.Entry<RepositoryLayer, String> layerHash : layerHashes.entrySet()) {
+                writer.write("L " + layerHash.getKey().getDirectoryName() + ' ' + layerHash.getValue() + '\n');
+            }
+            for (String versionDirectory : versionDirectories) {
+                Integer runs = previousRuns.get(versionDirectory);
+                writer.write("G " + (runs == null ? 1 : runs + 1) + ' ' + versionDirectory + '\n');
+            }
+            for (Map.Entry<String, FileHash> fileHash : fileHashes.entrySet()) {
+                FileHash hash = fileHash.getValue();
+                writer.write("F " + hash.length + ' ' + hash.lastModified + ' ' + hash.sha256 + ' ' + fileHash.getKey() + '\n');
+            }
+        }
+    }
+
+    private static String toRelativePath(Path base, Path path) {
+        return base.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static final class FileHash {
+
+        private final long length;
+        private final long lastModified;
+        private final String sha256;
+
+        FileHash(long length, long lastModified, String sha256) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+        }
+    }
+}
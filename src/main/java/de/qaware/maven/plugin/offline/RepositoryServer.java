@@ -0,0 +1,463 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal read-only HTTP/1.1 server that serves a fixed set of files from the local repository in the maven repository layout.
+ * <p>
+ * Only the files and generated contents (e.g. repository metadata) passed to the constructor and their SHA-1 and MD5 checksums are
+ * served, every other path is answered with 404.
+ * Supports GET and HEAD requests, persistent connections and single byte ranges. File contents are written with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, so they are copied from the page cache to the
+ * socket without passing through the heap.
+ */
+class RepositoryServer implements Closeable {
+
+    private static final int MAX_HEADER_SIZE = 16 * 1024;
+    private static final long IDLE_TIMEOUT_MILLIS = 30000;
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+    private static final Map<String, String> CHECKSUM_ALGORITHMS = new HashMap<>();
+
+    static {
+        CHECKSUM_ALGORITHMS.put(".sha1", "SHA-1");
+        CHECKSUM_ALGORITHMS.put(".md5", "MD5");
+    }
+
+    private final Map<String, File> files;
+    private final Map<String, byte[]> contents;
+    private final Map<String, byte[]> checksums = new ConcurrentHashMap<>();
+    private final Log log;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService workers;
+
+    /**
+     * Create a server and bind it to the given address.
+     *
+     * @param files    the files to serve by their path relative to the repository root, e.g. {@code org/example/lib/1.0/lib-1.0.jar}.
+     * @param contents generated contents to serve by their path relative to the repository root.
+     * @param address  the address to bind to. Use port 0 to bind to any free port.
+     * @param threads  the maximum number of connections that are served in parallel.
+     * @param log      used to log requests and errors.
+     * @throws IOException if the server socket can not be bound.
+     */
+    RepositoryServer(Map<String, File> files, Map<String, byte[]> contents, InetSocketAddress address, int threads, Log log) throws IOException {
+        this.files = files;
+        this.contents = contents;
+        this.log = log;
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+        } catch (IOException e) {
+            serverChannel.close();
+            throw e;
+        }
+        this.workers = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "go-offline-repository-server-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Returns the address the server is bound to.
+     *
+     * @return the address the server is bound to.
+     * @throws IOException if the address can not be determined.
+     */
+    InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Accept connections until the server is closed or the current thread is interrupted.
+     */
+    void serve() {
+        while (serverChannel.isOpen()) {
+            final SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                // Closed or interrupted
+                return;
+            } catch (IOException e) {
+                log.warn("Could not accept connection: " + e.getMessage());
+                continue;
+            }
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    handleConnection(channel);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverChannel.close();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleConnection(SocketChannel channel) {
+        try (SocketChannel socket = channel; Selector selector = Selector.open()) {
+            socket.configureBlocking(false);
+            SelectionKey key = socket.register(selector, 0);
+            Connection connection = new Connection(socket, selector, key);
+            boolean keepAlive = true;
+            while (keepAlive && !Thread.currentThread().isInterrupted()) {
+                String header = connection.readHeader();
+                if (header == null) {
+                    return;
+                }
+                keepAlive = handleRequest(connection, header);
+            }
+        } catch (IOException e) {
+            log.debug("Connection closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Answer a single request.
+     *
+     * @return true if the connection should be kept open for further requests.
+     */
+    private boolean handleRequest(Connection connection, String header) throws IOException {
+        String[] lines = header.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3) {
+            connection.sendStatus(400, "Bad Request", false, false);
+            return false;
+        }
+        String method = requestLine[0];
+        String version = requestLine[2];
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT), lines[i].substring(colon + 1).trim());
+            }
+        }
+        String connectionHeader = headers.get("connection");
+        boolean keepAlive = "HTTP/1.1".equals(version) ? !"close".equalsIgnoreCase(connectionHeader) : "keep-alive".equalsIgnoreCase(connectionHeader);
+
+        boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            connection.sendStatus(405, "Method Not Allowed", false, keepAlive, "Allow: GET, HEAD");
+            return keepAlive;
+        }
+        String path = toRepositoryPath(requestLine[1]);
+        if (path == null) {
+            connection.sendStatus(400, "Bad Request", false, false);
+            return false;
+        }
+
+        File file = files.get(path);
+        if (file != null) {
+            serveFile(connection, file, headers.get("range"), head, keepAlive);
+            log.debug(method + " " + path);
+            return keepAlive;
+        }
+        byte[] content = contents.get(path);
+        if (content != null) {
+            connection.sendHeader(200, "OK", content.length, keepAlive, "Content-Type: text/xml");
+            if (!head) {
+                connection.write(ByteBuffer.wrap(content));
+            }
+            log.debug(method + " " + path);
+            return keepAlive;
+        }
+        byte[] checksum = getChecksum(path);
+        if (checksum != null) {
+            connection.sendHeader(200, "OK", checksum.length, keepAlive, "Content-Type: text/plain");
+            if (!head) {
+                connection.write(ByteBuffer.wrap(checksum));
+            }
+            return keepAlive;
+        }
+        connection.sendStatus(404, "Not Found", head, keepAlive);
+        return keepAlive;
+    }
+
+    private void serveFile(Connection connection, File file, String range, boolean head, boolean keepAlive) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long length = fileChannel.size();
+            String lastModified = "Last-Modified: " + formatDate(file.lastModified());
+            String contentType = "Content-Type: " + (file.getName().endsWith(".pom") ? "text/xml" : "application/octet-stream");
+            long start = 0;
+            long end = length - 1;
+            long[] byteRange = parseRange(range, length);
+            if (byteRange != null && byteRange.length == 0) {
+                connection.sendStatus(416, "Range Not Satisfiable", head, keepAlive, "Content-Range: bytes */" + length);
+                return;
+            }
+            if (byteRange != null) {
+                start = byteRange[0];
+                end = byteRange[1];
+                connection.sendHeader(206, "Partial Content", end - start + 1, keepAlive, contentType, lastModified, "Accept-Ranges: bytes",
+                        "Content-Range: bytes " + start + '-' + end + '/' + length);
+            } else {
+                connection.sendHeader(200, "OK", length, keepAlive, contentType, lastModified, "Accept-Ranges: bytes");
+            }
+            if (!head) {
+                connection.transferFrom(fileChannel, start, end - start + 1);
+            }
+        }
+    }
+
+    /**
+     * Parse a range header. Only single byte ranges are supported, requests for multiple ranges are answered with the whole file.
+     *
+     * @return null if the whole file should be sent, an empty array if the range is not satisfiable, the first and last byte otherwise.
+     */
+    private static long[] parseRange(String range, long length) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? length - 1 : Math.min(length - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            if (start >= length || end < start) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private byte[] getChecksum(String path) throws IOException {
+        for (Map.Entry<String, String> algorithm : CHECKSUM_ALGORITHMS.entrySet()) {
+            if (!path.endsWith(algorithm.getKey())) {
+                continue;
+            }
+            String checksummedPath = path.substring(0, path.length() - algorithm.getKey().length());
+            File file = files.get(checksummedPath);
+            byte[] content = contents.get(checksummedPath);
+            if (file == null && content == null) {
+                return null;
+            }
+            byte[] checksum = checksums.get(path);
+            if (checksum == null) {
+                try (InputStream in = file != null ? Files.newInputStream(file.toPath()) : new ByteArrayInputStream(content)) {
+                    checksum = computeChecksum(in, algorithm.getValue());
+                }
+                checksums.put(path, checksum);
+            }
+            return checksum;
+        }
+        return null;
+    }
+
+    private static byte[] computeChecksum(InputStream in, String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not supported", e);
+        }
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            digest.update(chunk, 0, read);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String toRepositoryPath(String target) {
+        int query = target.indexOf('?');
+        if (query >= 0) {
+            target = target.substring(0, query);
+        }
+        try {
+            target = URLDecoder.decode(target.replace("+", "%2B"), "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return null;
+        }
+        while (target.startsWith("/")) {
+            target = target.substring(1);
+        }
+        return target;
+    }
+
+    private static String formatDate(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(new Date(millis));
+    }
+
+    /**
+     * A non-blocking client connection. Reads and writes wait for the selector, so idle connections are closed after a timeout
+     * instead of blocking a worker thread forever.
+     */
+    private static final class Connection {
+
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final SelectionKey key;
+        private final ByteBuffer input = ByteBuffer.allocate(MAX_HEADER_SIZE);
+
+        Connection(SocketChannel channel, Selector selector, SelectionKey key) {
+            this.channel = channel;
+            this.selector = selector;
+            this.key = key;
+            input.flip();
+        }
+
+        /**
+         * Read the request line and headers of the next request. Bytes following the header stay in the buffer for the next request.
+         *
+         * @return the header without the terminating empty line or null if the connection has been closed or timed out.
+         */
+        String readHeader() throws IOException {
+            while (true) {
+                int end = findHeaderEnd();
+                if (end >= 0) {
+                    byte[] header = new byte[end - input.position()];
+                    input.get(header);
+                    input.position(input.position() + 4);
+                    return new String(header, StandardCharsets.ISO_8859_1);
+                }
+                input.compact();
+                if (!input.hasRemaining()) {
+                    throw new IOException("Request header too large");
+                }
+                int read = channel.read(input);
+                if (read == 0) {
+                    if (!await(SelectionKey.OP_READ)) {
+                        input.flip();
+                        return null;
+                    }
+                    read = channel.read(input);
+                }
+                input.flip();
+                if (read < 0) {
+                    return null;
+                }
+            }
+        }
+
+        private int findHeaderEnd() {
+            for (int i = input.position(); i + 3 < input.limit(); i++) {
+                if (input.get(i) == '\r' && input.get(i + 1) == '\n' && input.get(i + 2) == '\r' && input.get(i + 3) == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void sendStatus(int status, String reason, boolean head, boolean keepAlive, String... headers) throws IOException {
+            byte[] body = (status + " " + reason + "\n").getBytes(StandardCharsets.US_ASCII);
+            String[] allHeaders = new String[headers.length + 1];
+            System.arraycopy(headers, 0, allHeaders, 0, headers.length);
+            allHeaders[headers.length] = "Content-Type: text/plain";
+            sendHeader(status, reason, body.length, keepAlive, allHeaders);
+            if (!head) {
+                write(ByteBuffer.wrap(body));
+            }
+        }
+
+        void sendHeader(int status, String reason, long contentLength, boolean keepAlive, String... headers) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            sb.append("HTTP/1.1 ").append(status).append(' ').append(reason).append("\r\n");
+            sb.append("Content-Length: ").append(contentLength).append("\r\n");
+            sb.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+            for (String header : headers) {
+                sb.append(header).append("\r\n");
+            }
+            sb.append("\r\n");
+            write(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.ISO_8859_1)));
+        }
+
+        void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.write(buffer) == 0 && !await(SelectionKey.OP_WRITE)) {
+                    throw new IOException("Write timed out");
+                }
+            }
+        }
+
+        void transferFrom(FileChannel file, long position, long count) throws IOException {
+            long end = position + count;
+            while (position < end) {
+                long written = file.transferTo(position, end - position, channel);
+                if (written == 0 && !await(SelectionKey.OP_WRITE)) {
+                    throw new IOException("Write timed out");
+                }
+                position += written;
+            }
+        }
+
+        private boolean await(int operation) throws IOException {
+            key.interestOps(operation);
+            try {
+                return selector.select(IDLE_TIMEOUT_MILLIS) > 0;
+            } finally {
+                selector.selectedKeys().clear();
+                key.interestOps(0);
+            }
+        }
+    }
+}
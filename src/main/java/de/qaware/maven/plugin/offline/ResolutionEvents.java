@@ -0,0 +1,108 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Records events for the hot paths of the {@link DependencyDownloader}: dependency collection, download batches and failed requests.
+ * <p>
+ * If the JVM supports Java Flight Recorder, the events are emitted as JFR events by {@link JfrResolutionEvents}, so they show up
+ * in recordings started with {@code -XX:StartFlightRecording} next to GC and I/O events. Otherwise all methods do nothing.
+ * The JFR implementation is loaded reflectively, so the plugin still runs on JVMs without JFR. It is compiled for Java 11 from
+ * {@code src/main/java-jfr} by the {@code jfr} profile and is missing if the plugin has been built with an older JDK.
+ */
+abstract class ResolutionEvents {
+
+    private static final String JFR_EVENT_CLASS = "jdk.jfr.Event";
+    private static final String JFR_RESOLUTION_EVENTS_CLASS = "de.qaware.maven.plugin.offline.JfrResolutionEvents";
+
+    /**
+     * Events implementation that does not record anything.
+     */
+    static final ResolutionEvents NOOP = new ResolutionEvents() {
+
+        @Override
+        Object beginCollection() {
+            return null;
+        }
+
+        @Override
+        void endCollection(Object collection, String kind, String coordinates, int nodeCount, boolean fromIndex, boolean failed) {
+            // Noop
+        }
+
+        @Override
+        Object beginDownloadBatch() {
+            return null;
+        }
+
+        @Override
+        void endDownloadBatch(Object batch, int requestCount, int failedCount) {
+            // Noop
+        }
+
+        @Override
+        void requestFailed(String coordinates, ErrorCause cause, String message) {
+            // Noop
+        }
+    };
+
+    /**
+     * Create the events implementation for the current JVM.
+     *
+     * @param log used to log why JFR events are not available.
+     * @return the JFR implementation if JFR is available, {@link #NOOP} otherwise.
+     */
+    static ResolutionEvents create(Log log) {
+        try {
+            Class.forName(JFR_EVENT_CLASS);
+            return (ResolutionEvents) Class.forName(JFR_RESOLUTION_EVENTS_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.debug("Java Flight Recorder is not available, no resolution events will be recorded");
+            return NOOP;
+        }
+    }
+
+    /**
+     * Start timing a dependency collection.
+     *
+     * @return a handle to pass to {@link #endCollection(Object, String, String, int, boolean, boolean)}.
+     */
+    abstract Object beginCollection();
+
+    /**
+     * Record a finished dependency collection.
+     *
+     * @param collection  the handle returned by {@link #beginCollection()}.
+     * @param kind        what has been collected: project, plugin or dynamic dependency.
+     * @param coordinates the coordinates of the project, plugin or dynamic dependency.
+     * @param nodeCount   the number of nodes in the collected dependency tree.
+     * @param fromIndex   true if the result has been read from the descriptor index.
+     * @param failed      true if the collection failed.
+     */
+    abstract void endCollection(Object collection, String kind, String coordinates, int nodeCount, boolean fromIndex, boolean failed);
+
+    /**
+     * Start timing a download batch.
+     *
+     * @return a handle to pass to {@link #endDownloadBatch(Object, int, int)}.
+     */
+    abstract Object beginDownloadBatch();
+
+    /**
+     * Record a finished download batch.
+     *
+     * @param batch        the handle returned by {@link #beginDownloadBatch()}.
+     * @param requestCount the number of artifact requests in the batch.
+     * @param failedCount  the number of artifact requests that failed.
+     */
+    abstract void endDownloadBatch(Object batch, int requestCount, int failedCount);
+
+    /**
+     * Record a failed request.
+     *
+     * @param coordinates the coordinates of the requested artifact, may be null if unknown.
+     * @param cause       the cause of the failure.
+     * @param message     the error message.
+     */
+    abstract void requestFailed(String coordinates, ErrorCause cause, String message);
+}
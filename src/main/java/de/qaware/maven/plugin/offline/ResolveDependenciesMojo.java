@@ -1,12 +1,15 @@
 package de.qaware.maven.plugin.offline;
 
 import org.apache.maven.model.Plugin;
+import org.apache.maven.model.building.ModelBuildingException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -28,9 +31,19 @@ import java.util.Set;
 @Mojo(name = "resolve-dependencies", threadSafe = true, requiresOnline = true, aggregator = true)
 public class ResolveDependenciesMojo extends AbstractGoOfflineMojo {
 
+    /**
+     * Default number of parallel downloads per repository of the basic repository connector.
+     */
+    private static final int DEFAULT_DOWNLOAD_THREADS = 5;
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
     @Component
     private DependencyDownloader dependencyDownloader;
 
+    @Component
+    private ReactorScanner reactorScanner;
+
     @Parameter
     private List<DynamicDependency> dynamicDependencies;
 
@@ -43,33 +56,229 @@ public class ResolveDependenciesMojo extends AbstractGoOfflineMojo {
     @Parameter(defaultValue = "false", property = "failOnErrors")
     private boolean failOnErrors;
 
+    /**
+     * Cancel all outstanding work on the first error that makes the remaining work pointless and fail the build. Implies failOnErrors.
+     * Such errors are rejected credentials, repositories no connection can be established to and missing plugins or dynamic dependencies.
+     * Other errors, e.g. a missing transitive dependency or a read timeout, do not cancel the remaining work but still fail the build at the end.
+     */
+    @Parameter(defaultValue = "false", property = "failFast")
+    private boolean failFast;
+
+    /**
+     * Maximum number of evictable entries of the repository cache shared by project and plugin resolution, at least 16. Uses 20000 entries
+     * if not set. Bounds the number of cached models and version resolution results only. The resolver's data pools (artifact descriptors,
+     * artifacts and dependencies) are stored in the same cache but are never evicted and not counted, so their memory is not limited.
+     */
+    @Parameter(property = "repositoryCacheSize")
+    private Integer repositoryCacheSize;
+
+    /**
+     * Store dependency collection results in an index in the local repository and reuse them in later runs as long as the involved POMs did not change.
+     */
+    @Parameter(defaultValue = "false", property = "useDescriptorIndex")
+    private boolean useDescriptorIndex;
+
+    /**
+     * The lockfile written by writeLockfile and read by useLockfile.
+     */
+    @Parameter(defaultValue = "${project.basedir}/go-offline.lock", property = "lockfile")
+    private File lockfile;
+
+    /**
+     * Write all resolved artifacts and their checksums to the lockfile.
+     */
+    @Parameter(defaultValue = "false", property = "writeLockfile")
+    private boolean writeLockfile;
+
+    /**
+     * Download the artifacts listed in the lockfile instead of collecting the dependencies of the build and verify their checksums.
+     */
+    @Parameter(defaultValue = "false", property = "useLockfile")
+    private boolean useLockfile;
+
+    /**
+     * If set, the resolved artifacts are additionally written to this directory, split into the layers stable, recent and volatile.
+     */
+    @Parameter(property = "layerOutputDirectory")
+    private File layerOutputDirectory;
+
+    /**
+     * Number of previous runs a release must have been part of before it is moved to the stable layer.
+     */
+    @Parameter(defaultValue = "3", property = "stableLayerRuns")
+    private int stableLayerRuns;
+
+    /**
+     * Number of parallel downloads per repository. Uses the resolver default if not set.
+     */
+    @Parameter(property = "downloadThreads")
+    private Integer downloadThreads;
+
+    /**
+     * If true, the number of parallel downloads per repository is adjusted to the observed throughput, latency and error rate.
+     * Starts with downloadThreads or the concurrency stored by the previous run. The same number is used for all repositories,
+     * the lowest one any of the repositories can handle.
+     */
+    @Parameter(defaultValue = "false", property = "adaptiveDownloadConcurrency")
+    private boolean adaptiveDownloadConcurrency;
+
+    /**
+     * Lower bound of the parallel downloads per repository if adaptiveDownloadConcurrency is enabled.
+     */
+    @Parameter(defaultValue = "1", property = "minDownloadThreads")
+    private int minDownloadThreads;
+
+    /**
+     * Upper bound of the parallel downloads per repository if adaptiveDownloadConcurrency is enabled.
+     */
+    @Parameter(defaultValue = "32", property = "maxDownloadThreads")
+    private int maxDownloadThreads;
+
+    /**
+     * If true, the modules of the build are read from the POM files by a lightweight scanner instead of using the projects built by maven.
+     * Run maven with -N, so maven only builds the root project.
+     */
+    @Parameter(defaultValue = "false", property = "scanReactor")
+    private boolean scanReactor;
+
+    /**
+     * Dynamic dependencies larger than this size in megabytes are downloaded in parallel chunks that are resumed after an interruption.
+     * Chunked downloads are disabled if not set.
+     */
+    @Parameter(property = "chunkedDownloadThreshold")
+    private Integer chunkedDownloadThreshold;
+
+    /**
+     * Size of a chunk in megabytes for chunked downloads.
+     */
+    @Parameter(defaultValue = "16", property = "chunkedDownloadChunkSize")
+    private int chunkedDownloadChunkSize;
+
+    /**
+     * Number of chunks of an artifact downloaded in parallel.
+     */
+    @Parameter(defaultValue = "4", property = "chunkedDownloadThreads")
+    private int chunkedDownloadThreads;
+
     ResolveDependenciesMojo() {
         // Noop
     }
 
     public void execute() throws MojoExecutionException {
         validateConfiguration();
-        dependencyDownloader.init(getBuildingRequest(), getReactorProjects(), getLog());
+        List<MavenProject> projects = scanReactor ? scanReactor() : getReactorProjects();
+        if (repositoryCacheSize != null) {
+            dependencyDownloader.init(getBuildingRequest(), projects, repositoryCacheSize, getLog());
+        } else {
+            dependencyDownloader.init(getBuildingRequest(), projects, getLog());
+        }
         if (downloadSources) {
             dependencyDownloader.enableDownloadSources();
         }
         if (downloadJavadoc) {
             dependencyDownloader.enableDownloadJavadoc();
         }
+        if (failFast) {
+            dependencyDownloader.enableFailFast();
+        }
+        if (useDescriptorIndex) {
+            dependencyDownloader.enableDescriptorIndex();
+        }
+        if (downloadThreads != null) {
+            dependencyDownloader.setDownloadThreads(downloadThreads);
+        }
+        if (chunkedDownloadThreshold != null && dynamicDependencies != null) {
+            dependencyDownloader.enableChunkedDownloads(chunkedDownloadThreshold * MEGABYTE, chunkedDownloadChunkSize * (int) MEGABYTE, chunkedDownloadThreads,
+                    dynamicDependencies);
+        }
+        if (adaptiveDownloadConcurrency) {
+            dependencyDownloader.enableAdaptiveConcurrency(minDownloadThreads, maxDownloadThreads,
+                    downloadThreads != null ? downloadThreads : DEFAULT_DOWNLOAD_THREADS);
+        }
+
+        Set<ArtifactWithRepoType> artifactsToDownload;
+        Lockfile lock = null;
+        if (useLockfile) {
+            lock = readLockfile();
+            artifactsToDownload = lock.getArtifacts();
+        } else {
+            artifactsToDownload = collectArtifacts(projects);
+        }
+
+        dependencyDownloader.downloadArtifacts(artifactsToDownload);
+        dependencyDownloader.saveDescriptorIndex();
+        dependencyDownloader.logRepositoryCacheStatistics();
+        if (lock != null) {
+            dependencyDownloader.verifyLockfile(lock);
+        } else if (writeLockfile) {
+            writeLockfile(artifactsToDownload);
+        }
+        if (layerOutputDirectory != null) {
+            writeLayers(artifactsToDownload, projects);
+        }
+
+        List<Exception> errors = dependencyDownloader.getErrors();
+        if (failFast) {
+            new ErrorReport(errors).log(getLog());
+        } else {
+            for (Exception error : errors) {
+                getLog().warn(error.getMessage());
+            }
+        }
+
+        if ((failOnErrors || failFast) && !errors.isEmpty()) {
+            throw new MojoExecutionException("Unable to download dependencies, consult the errors and warnings printed above.");
+        }
+        afterResolution(artifactsToDownload, dependencyDownloader);
+    }
+
+    /**
+     * Called after all artifacts have been downloaded successfully. Allows goals building on this goal to use the resolved artifacts.
+     *
+     * @param artifacts            the resolved artifacts.
+     * @param dependencyDownloader the downloader used to resolve the artifacts.
+     * @throws MojoExecutionException if the goal fails.
+     */
+    void afterResolution(Set<ArtifactWithRepoType> artifacts, DependencyDownloader dependencyDownloader) throws MojoExecutionException {
+        // Noop
+    }
 
+    /**
+     * Read the modules of the build with the {@link ReactorScanner}, starting with the projects in the reactor.
+     */
+    private List<MavenProject> scanReactor() throws MojoExecutionException {
+        List<File> rootPomFiles = new ArrayList<>();
+        for (MavenProject project : getReactorProjects()) {
+            if (project.getFile() != null) {
+                rootPomFiles.add(project.getFile());
+            }
+        }
+        if (rootPomFiles.size() > 1) {
+            getLog().info("scanReactor is used without -N, run maven with -N to avoid building all projects before the scan");
+        }
+        reactorScanner.init(getBuildingRequest(), getLog());
+        try {
+            return reactorScanner.scan(rootPomFiles);
+        } catch (ModelBuildingException | IOException e) {
+            throw new MojoExecutionException("Unable to scan the modules of the build", e);
+        }
+    }
+
+    /**
+     * Collect the artifacts of all plugins, project dependencies and dynamic dependencies of the build.
+     */
+    private Set<ArtifactWithRepoType> collectArtifacts(List<MavenProject> projects) {
         List<Plugin> allPlugins = new ArrayList<>();
-        for (MavenProject mavenProject : getReactorProjects()) {
+        for (MavenProject mavenProject : projects) {
             List<Plugin> buildPlugins = mavenProject.getBuildPlugins();
             allPlugins.addAll(buildPlugins);
         }
 
         Set<ArtifactWithRepoType> artifactsToDownload = new HashSet<>();
-
-
         for (Plugin plugin : allPlugins) {
             artifactsToDownload.addAll(dependencyDownloader.resolvePlugin(plugin));
         }
-        for (MavenProject project : getReactorProjects()) {
+        for (MavenProject project : projects) {
             artifactsToDownload.addAll(dependencyDownloader.resolveDependencies(project));
         }
         if (dynamicDependencies != null) {
@@ -78,20 +287,78 @@ public class ResolveDependenciesMojo extends AbstractGoOfflineMojo {
             }
         }
 
-        dependencyDownloader.downloadArtifacts(artifactsToDownload);
+        return artifactsToDownload;
+    }
 
+    private Lockfile readLockfile() throws MojoExecutionException {
+        try {
+            Lockfile lock = Lockfile.read(lockfile);
+            getLog().info("Downloading " + lock.getArtifacts().size() + " artifacts from lockfile " + lockfile);
+            return lock;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to read lockfile " + lockfile, e);
+        }
+    }
 
-        List<Exception> errors = dependencyDownloader.getErrors();
-        for (Exception error : errors) {
-            getLog().warn(error.getMessage());
+    private void writeLockfile(Set<ArtifactWithRepoType> artifacts) throws MojoExecutionException {
+        if (!dependencyDownloader.getErrors().isEmpty()) {
+            getLog().warn("Not writing lockfile " + lockfile + " since not all dependencies could be downloaded");
+            return;
         }
+        // Downloading an artifact does not download its POM, so the POMs needed to build offline must be part of the lockfile
+        Set<ArtifactWithRepoType> lockedArtifacts = new HashSet<>(artifacts);
+        lockedArtifacts.addAll(dependencyDownloader.getPomClosure(artifacts));
+        lockedArtifacts.addAll(dependencyDownloader.getAttachedArtifacts(artifacts));
+        try {
+            dependencyDownloader.createLockfile(lockedArtifacts).write(lockfile);
+            getLog().info("Wrote lockfile " + lockfile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write lockfile " + lockfile, e);
+        }
+    }
 
-        if (failOnErrors && !errors.isEmpty()) {
-            throw new MojoExecutionException("Unable to download dependencies, consult the errors and warnings printed above.");
+    private void writeLayers(Set<ArtifactWithRepoType> artifacts, List<MavenProject> projects) throws MojoExecutionException {
+        Set<ArtifactWithRepoType> layerArtifacts = new HashSet<>(artifacts);
+        layerArtifacts.addAll(dependencyDownloader.getPomClosure(artifacts));
+        Set<String> reactorGroupIds = new HashSet<>();
+        for (MavenProject project : projects) {
+            reactorGroupIds.add(project.getGroupId());
+        }
+        File localRepository = getBuildingRequest().getRepositorySession().getLocalRepository().getBasedir();
+        try {
+            new RepositoryLayerWriter(layerOutputDirectory, localRepository, stableLayerRuns, reactorGroupIds, getLog()).write(layerArtifacts, dependencyDownloader);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to write repository layers to " + layerOutputDirectory, e);
         }
     }
 
-    private void validateConfiguration() throws MojoExecutionException {
+    /**
+     * Check the configured parameters before anything is resolved. Subclasses that add parameters extend the check.
+     *
+     * @throws MojoExecutionException if a parameter has an invalid value.
+     */
+    void validateConfiguration() throws MojoExecutionException {
+        if (repositoryCacheSize != null && repositoryCacheSize < BoundedRepositoryCache.MIN_SIZE) {
+            throw new MojoExecutionException("repositoryCacheSize must be at least " + BoundedRepositoryCache.MIN_SIZE + " but was " + repositoryCacheSize);
+        }
+        if (downloadThreads != null && downloadThreads < 1) {
+            throw new MojoExecutionException("downloadThreads must be at least 1 but was " + downloadThreads);
+        }
+        if (adaptiveDownloadConcurrency && (minDownloadThreads < 1 || maxDownloadThreads < minDownloadThreads)) {
+            throw new MojoExecutionException("minDownloadThreads must be at least 1 and not greater than maxDownloadThreads but was "
+                    + minDownloadThreads + " and " + maxDownloadThreads);
+        }
+        if (chunkedDownloadThreshold != null && (chunkedDownloadThreshold < 0 || chunkedDownloadChunkSize < 1 || chunkedDownloadChunkSize > 1024
+                || chunkedDownloadThreads < 1)) {
+            throw new MojoExecutionException("chunkedDownloadThreshold must not be negative, chunkedDownloadChunkSize must be between 1 and 1024"
+                    + " and chunkedDownloadThreads must be at least 1");
+        }
+        if (stableLayerRuns < 0) {
+            throw new MojoExecutionException("stableLayerRuns must not be negative but was " + stableLayerRuns);
+        }
+        if (useLockfile && writeLockfile) {
+            throw new MojoExecutionException("useLockfile and writeLockfile can not be used together");
+        }
         if (dynamicDependencies != null) {
             for (DynamicDependency dynamicDependency : dynamicDependencies) {
                 dynamicDependency.validate();
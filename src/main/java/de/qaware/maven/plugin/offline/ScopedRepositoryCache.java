@@ -0,0 +1,82 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view on a shared {@link BoundedRepositoryCache} that is restricted to a list of remote repositories.
+ * <p>
+ * The resolver caches artifact descriptors, models and version results without regard to the repositories they have been
+ * read from. That's why project and plugin dependencies are resolved in separate sessions. But as long as the project and plugin
+ * repositories are the same, the cached data is the same as well and parsing the same POMs twice is a waste of time.
+ * <p>
+ * All views on the same backing cache with equal repository lists see the same entries, views with different repository lists
+ * are kept apart.
+ */
+public class ScopedRepositoryCache implements RepositoryCache {
+
+    private final BoundedRepositoryCache backingCache;
+    private final List<RemoteRepository> scope;
+    private final int scopeHashCode;
+
+    /**
+     * Create a new view on the backing cache.
+     *
+     * @param backingCache the cache that holds the data of all views.
+     * @param repositories the repositories used by the session this view belongs to.
+     */
+    public ScopedRepositoryCache(BoundedRepositoryCache backingCache, List<RemoteRepository> repositories) {
+        this.backingCache = backingCache;
+        this.scope = new ArrayList<>(repositories);
+        this.scopeHashCode = scope.hashCode();
+    }
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        backingCache.put(new ScopedKey(scope, scopeHashCode, key), data, key instanceof String);
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        return backingCache.get(new ScopedKey(scope, scopeHashCode, key), key instanceof String);
+    }
+
+    private static final class ScopedKey {
+
+        private final List<RemoteRepository> scope;
+        private final Object key;
+        private final int hashCode;
+
+        /**
+         * Create a new key.
+         *
+         * @param scope         the repositories of the view.
+         * @param scopeHashCode the hash code of the repositories, computed once per view because hashing all repositories on every
+         *                      lookup is expensive.
+         * @param key           the key used by the resolver.
+         */
+        ScopedKey(List<RemoteRepository> scope, int scopeHashCode, Object key) {
+            this.scope = scope;
+            this.key = key;
+            this.hashCode = 31 * scopeHashCode + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ScopedKey that = (ScopedKey) o;
+            return hashCode == that.hashCode && key.equals(that.key) &&
+                    (scope == that.scope || scope.equals(that.scope));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.eclipse.aether.artifact.Artifact;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mojo that downloads all dependencies like the resolve-dependencies goal and then serves them as a read-only maven repository over HTTP.
+ * <p>
+ * Other machines can use the served repository as mirror, so the artifacts are downloaded from the remote repositories only once.
+ * Only the resolved artifacts, their POMs, parent POMs and imported BOMs, their sources and javadoc if these have been downloaded and the
+ * checksums of these files are served. For the served maven plugins, repository metadata is served as well, so goal prefixes and the
+ * versions of plugins that are not configured in the POM can be resolved.
+ * The goal blocks until maven is stopped.
+ */
+@Mojo(name = "serve-repository", threadSafe = true, requiresOnline = true, aggregator = true)
+public class ServeRepositoryMojo extends ResolveDependenciesMojo {
+
+    /**
+     * Port the repository is served on.
+     */
+    @Parameter(defaultValue = "8081", property = "servePort")
+    private int servePort;
+
+    /**
+     * Address the repository is served on. Defaults to all interfaces, so every machine that can reach this one can download the served
+     * artifacts without authentication. Use the address of an internal network interface or 127.0.0.1 if the machine is reachable from
+     * untrusted networks.
+     */
+    @Parameter(defaultValue = "0.0.0.0", property = "serveAddress")
+    private String serveAddress;
+
+    /**
+     * Maximum number of connections served in parallel.
+     */
+    @Parameter(defaultValue = "16", property = "serveThreads")
+    private int serveThreads;
+
+    ServeRepositoryMojo() {
+        // Noop
+    }
+
+    @Override
+    void validateConfiguration() throws MojoExecutionException {
+        super.validateConfiguration();
+        if (serveThreads < 1) {
+            throw new MojoExecutionException("serveThreads must be at least 1 but was " + serveThreads);
+        }
+    }
+
+    @Override
+    void afterResolution(Set<ArtifactWithRepoType> artifacts, DependencyDownloader dependencyDownloader) throws MojoExecutionException {
+        File localRepository = getBuildingRequest().getRepositorySession().getLocalRepository().getBasedir();
+        PluginRepositoryMetadata pluginMetadata = new PluginRepositoryMetadata();
+        Map<String, File> files = getServedFiles(artifacts, dependencyDownloader, localRepository, pluginMetadata);
+
+        try (RepositoryServer server = new RepositoryServer(files, pluginMetadata.getFiles(), new InetSocketAddress(serveAddress, servePort), serveThreads,
+                getLog())) {
+            InetSocketAddress address = server.getAddress();
+            getLog().info("Serving " + files.size() + " files on http://" + address.getHostString() + ':' + address.getPort() + "/");
+            getLog().info("Press Ctrl+C to stop the repository");
+            server.serve();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Unable to serve repository on " + serveAddress + ':' + servePort, e);
+        }
+    }
+
+    /**
+     * Collect the files to serve for the resolved artifacts and add the served plugins to the plugin metadata.
+     * <p>
+     * Snapshots are not served, since they are stored under their base version in the local repository and need repository metadata to be
+     * resolved remotely. A warning is logged for each skipped snapshot.
+     *
+     * @param artifacts            the resolved artifacts.
+     * @param dependencyDownloader the downloader that resolved the artifacts.
+     * @param localRepository      the base directory of the local repository.
+     * @param pluginMetadata       the metadata the served plugins are added to.
+     * @return the files to serve by their path relative to the repository root.
+     */
+    Map<String, File> getServedFiles(Set<ArtifactWithRepoType> artifacts, DependencyDownloader dependencyDownloader, File localRepository,
+                                     PluginRepositoryMetadata pluginMetadata) {
+        Set<ArtifactWithRepoType> servedArtifacts = new HashSet<>(artifacts);
+        servedArtifacts.addAll(dependencyDownloader.getPomClosure(artifacts));
+        servedArtifacts.addAll(dependencyDownloader.getAttachedArtifacts(artifacts));
+        Map<String, File> files = new HashMap<>();
+        Set<String> skippedSnapshots = new TreeSet<>();
+        for (ArtifactWithRepoType artifactWithRepoType : servedArtifacts) {
+            Artifact artifact = artifactWithRepoType.getArtifact();
+            if (artifact.isSnapshot()) {
+                skippedSnapshots.add(artifact.getGroupId() + ':' + artifact.getArtifactId() + ':' + artifact.getBaseVersion());
+                continue;
+            }
+            File file = dependencyDownloader.getLocalFile(artifact);
+            if (!file.isFile()) {
+                continue;
+            }
+            files.put(localRepository.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/'), file);
+            if (artifactWithRepoType.getRepositoryType() == RepositoryType.PLUGIN) {
+                addPluginMetadata(pluginMetadata, artifact, file);
+            }
+        }
+        for (String snapshot : skippedSnapshots) {
+            getLog().warn("Not serving snapshot " + snapshot + ", snapshots can not be resolved from the served repository");
+        }
+        return files;
+    }
+
+    private void addPluginMetadata(PluginRepositoryMetadata pluginMetadata, Artifact artifact, File file) {
+        try {
+            pluginMetadata.addArtifact(artifact, file);
+        } catch (IOException e) {
+            getLog().warn("Not serving metadata for " + artifact + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Transfer listener that measures throughput, latency and error rates of downloads per repository.
+ * <p>
+ * The measurements are collected in windows: {@link #drainStatistics()} returns the measurements since the last call and starts a new window.
+ * Used by the {@link AdaptiveConcurrencyController} to adjust the number of parallel downloads.
+ * <p>
+ * The latency of a download is measured from the moment a download thread starts working on it, not from the creation of its
+ * transfer resource, which happens before the download waits for a free thread. Otherwise the latency would grow with the number of
+ * queued downloads instead of the response time of the repository.
+ */
+class ThroughputTransferListener extends AbstractTransferListener {
+
+    private Map<String, TransferStatistics> statistics = new HashMap<>();
+    private final Map<TransferResource, Long> initiated = new IdentityHashMap<>();
+
+    @Override
+    public void transferInitiated(TransferEvent event) {
+        if (event.getRequestType() != TransferEvent.RequestType.GET) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            initiated.put(event.getResource(), now);
+        }
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        if (event.getRequestType() != TransferEvent.RequestType.GET) {
+            return;
+        }
+        TransferResource resource = event.getResource();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Long start = initiated.remove(resource);
+            long latency = Math.max(0, now - (start != null ? start : resource.getTransferStartTime()));
+            getStatistics(toRepositoryKey(resource.getRepositoryUrl())).addSuccess(event.getTransferredBytes(), latency);
+        }
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        if (event.getRequestType() != TransferEvent.RequestType.GET) {
+            return;
+        }
+        synchronized (this) {
+            initiated.remove(event.getResource());
+        }
+        if (event.getException() == null) {
+            return;
+        }
+        ErrorCause cause = ErrorCause.classify(event.getException());
+        if (cause == ErrorCause.ARTIFACT_NOT_FOUND || cause == ErrorCause.CANCELLED) {
+            // A missing artifact says nothing about the capacity of the repository
+            return;
+        }
+        synchronized (this) {
+            getStatistics(toRepositoryKey(event.getResource().getRepositoryUrl())).addFailure(cause == ErrorCause.THROTTLED);
+        }
+    }
+
+    /**
+     * Returns the statistics per repository collected since the last call and starts a new measurement window.
+     *
+     * @return the statistics per repository URL.
+     */
+    synchronized Map<String, TransferStatistics> drainStatistics() {
+        Map<String, TransferStatistics> result = statistics;
+        statistics = new HashMap<>();
+        return result;
+    }
+
+    /**
+     * Returns the key the statistics of a repository are stored under. Transfer resources report the repository URL with a trailing slash,
+     * so it is removed to get the same key as for the URL of the repository itself.
+     *
+     * @param repositoryUrl the URL of the repository.
+     * @return the key for the repository.
+     */
+    static String toRepositoryKey(String repositoryUrl) {
+        return repositoryUrl.endsWith("/") ? repositoryUrl.substring(0, repositoryUrl.length() - 1) : repositoryUrl;
+    }
+
+    private TransferStatistics getStatistics(String repositoryUrl) {
+        TransferStatistics repositoryStatistics = statistics.get(repositoryUrl);
+        if (repositoryStatistics == null) {
+            repositoryStatistics = new TransferStatistics();
+            statistics.put(repositoryUrl, repositoryStatistics);
+        }
+        return repositoryStatistics;
+    }
+
+    /**
+     * Download measurements of one repository in one measurement window.
+     */
+    static final class TransferStatistics {
+
+        private long bytes;
+        private long totalLatency;
+        private int successes;
+        private int failures;
+        private int throttled;
+
+        void addSuccess(long transferredBytes, long latency) {
+            bytes += transferredBytes;
+            totalLatency += latency;
+            successes++;
+        }
+
+        void addFailure(boolean throttled) {
+            failures++;
+            if (throttled) {
+                this.throttled++;
+            }
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        int getSuccesses() {
+            return successes;
+        }
+
+        int getThrottled() {
+            return throttled;
+        }
+
+        double getErrorRate() {
+            int requests = successes + failures;
+            return requests == 0 ? 0 : (double) failures / requests;
+        }
+
+        double getAverageLatency() {
+            return successes == 0 ? 0 : (double) totalLatency / successes;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Feeds the {@link AdaptiveConcurrencyController} with the measurements of clean, throttled and saturated waves.
+ */
+public class AdaptiveConcurrencyControllerTest {
+
+    private static final String FAST_REPOSITORY = "https://fast.example.org/maven2";
+    private static final String THROTTLING_REPOSITORY = "https://throttling.example.org/maven2";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void raisesConcurrencyAfterCleanWaves() throws IOException {
+        AdaptiveConcurrencyController controller = newController(4, FAST_REPOSITORY);
+
+        controller.update(statistics(FAST_REPOSITORY, clean(100)), 1000);
+        assertEquals(5, controller.getConcurrency());
+        controller.update(statistics(FAST_REPOSITORY, clean(100)), 1000);
+        assertEquals(6, controller.getConcurrency());
+    }
+
+    @Test
+    public void lowersConcurrencyOnThrottling() throws IOException {
+        AdaptiveConcurrencyController controller = newController(8, FAST_REPOSITORY);
+
+        ThroughputTransferListener.TransferStatistics throttled = clean(100);
+        throttled.addFailure(true);
+        controller.update(statistics(FAST_REPOSITORY, throttled), 1000);
+
+        assertEquals(4, controller.getConcurrency());
+    }
+
+    @Test
+    public void lowersConcurrencyOnErrors() throws IOException {
+        AdaptiveConcurrencyController controller = newController(8, FAST_REPOSITORY);
+
+        ThroughputTransferListener.TransferStatistics failing = clean(100);
+        failing.addFailure(false);
+        failing.addFailure(false);
+        controller.update(statistics(FAST_REPOSITORY, failing), 1000);
+
+        assertEquals(4, controller.getConcurrency());
+    }
+
+    @Test
+    public void keepsConcurrencyIfLatencyRisesWithoutMoreThroughput() throws IOException {
+        AdaptiveConcurrencyController controller = newController(4, FAST_REPOSITORY);
+        controller.update(statistics(FAST_REPOSITORY, clean(100)), 1000);
+        assertEquals(5, controller.getConcurrency());
+
+        controller.update(statistics(FAST_REPOSITORY, clean(200)), 1000);
+
+        assertEquals(5, controller.getConcurrency());
+    }
+
+    @Test
+    public void staysWithinBounds() throws IOException {
+        AdaptiveConcurrencyController controller = newController(1, FAST_REPOSITORY);
+        ThroughputTransferListener.TransferStatistics throttled = new ThroughputTransferListener.TransferStatistics();
+        throttled.addFailure(true);
+        controller.update(statistics(FAST_REPOSITORY, throttled), 1000);
+        assertEquals(1, controller.getConcurrency());
+
+        for (int i = 0; i < 20; i++) {
+            controller.update(statistics(FAST_REPOSITORY, clean(100)), 1000);
+        }
+        assertEquals(8, controller.getConcurrency());
+    }
+
+    @Test
+    public void usesLowestConcurrencyOfAllRepositories() throws IOException {
+        AdaptiveConcurrencyController controller = newController(8, FAST_REPOSITORY, THROTTLING_REPOSITORY);
+        ThroughputTransferListener.TransferStatistics throttled = new ThroughputTransferListener.TransferStatistics();
+        throttled.addFailure(true);
+        Map<String, ThroughputTransferListener.TransferStatistics> statistics = statistics(FAST_REPOSITORY, clean(100));
+        statistics.put(THROTTLING_REPOSITORY, throttled);
+
+        controller.update(statistics, 1000);
+
+        assertEquals(4, controller.getConcurrency());
+    }
+
+    @Test
+    public void storesConcurrencyOfEachRepositoryForTheNextRun() throws IOException {
+        AdaptiveConcurrencyController controller = newController(4, FAST_REPOSITORY, THROTTLING_REPOSITORY);
+        ThroughputTransferListener.TransferStatistics throttled = new ThroughputTransferListener.TransferStatistics();
+        throttled.addFailure(true);
+        Map<String, ThroughputTransferListener.TransferStatistics> statistics = statistics(FAST_REPOSITORY, clean(100));
+        statistics.put(THROTTLING_REPOSITORY, throttled);
+        controller.update(statistics, 1000);
+
+        controller.saveHints();
+
+        Properties hints = new Properties();
+        File hintFile = new File(temporaryFolder.getRoot(), ".go-offline/download-concurrency.properties");
+        assertTrue(hintFile.isFile());
+        try (InputStream in = Files.newInputStream(hintFile.toPath())) {
+            hints.load(in);
+        }
+        assertEquals("5", hints.getProperty(FAST_REPOSITORY));
+        assertEquals("2", hints.getProperty(THROTTLING_REPOSITORY));
+        assertEquals(5, newController(1, FAST_REPOSITORY).getConcurrency());
+        assertEquals(2, newController(1, FAST_REPOSITORY, THROTTLING_REPOSITORY).getConcurrency());
+    }
+
+    private AdaptiveConcurrencyController newController(int initialConcurrency, String... repositoryUrls) {
+        return new AdaptiveConcurrencyController(1, 8, initialConcurrency, Arrays.asList(repositoryUrls), temporaryFolder.getRoot(), new SystemStreamLog());
+    }
+
+    /**
+     * Returns the statistics of a wave of ten successful downloads with the given average latency.
+     */
+    private static ThroughputTransferListener.TransferStatistics clean(long latency) {
+        ThroughputTransferListener.TransferStatistics statistics = new ThroughputTransferListener.TransferStatistics();
+        for (int i = 0; i < 10; i++) {
+            statistics.addSuccess(1024, latency);
+        }
+        return statistics;
+    }
+
+    private static Map<String, ThroughputTransferListener.TransferStatistics> statistics(String repositoryUrl,
+                                                                                         ThroughputTransferListener.TransferStatistics statistics) {
+        return new HashMap<>(Collections.singletonMap(repositoryUrl, statistics));
+    }
+}
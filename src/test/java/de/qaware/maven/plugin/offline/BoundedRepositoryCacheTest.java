@@ -0,0 +1,65 @@
+package de.qaware.maven.plugin.offline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bounds the evictable entries of a {@link BoundedRepositoryCache} and keeps the pinned entries.
+ */
+public class BoundedRepositoryCacheTest {
+
+    @Test
+    public void boundsNumberOfEntries() {
+        BoundedRepositoryCache cache = new BoundedRepositoryCache(64);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(null, i, "value" + i);
+        }
+
+        int present = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (cache.get(null, i) != null) {
+                present++;
+            }
+        }
+        assertTrue("Entries present: " + present, present > 0 && present <= 64);
+        assertEquals("value999", cache.get(null, 999));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntryOfSegment() {
+        // Two entries per segment, the keys 0, 16 and 32 share a segment
+        BoundedRepositoryCache cache = new BoundedRepositoryCache(32);
+        cache.put(null, 0, "a");
+        cache.put(null, 16, "b");
+        assertEquals("a", cache.get(null, 0));
+
+        cache.put(null, 32, "c");
+
+        assertEquals("a", cache.get(null, 0));
+        assertNull(cache.get(null, 16));
+        assertEquals("c", cache.get(null, 32));
+    }
+
+    @Test
+    public void neverEvictsPinnedEntries() {
+        BoundedRepositoryCache cache = new BoundedRepositoryCache(BoundedRepositoryCache.MIN_SIZE);
+        for (int i = 0; i < 100; i++) {
+            cache.put(null, "pool" + i, "value" + i);
+            cache.put(null, i, "value" + i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, cache.get(null, "pool" + i));
+        }
+        cache.put(null, "pool0", null);
+        assertNull(cache.get(null, "pool0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSizeBelowMinimum() {
+        new BoundedRepositoryCache(BoundedRepositoryCache.MIN_SIZE - 1);
+    }
+}
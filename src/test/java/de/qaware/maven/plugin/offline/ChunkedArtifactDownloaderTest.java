@@ -0,0 +1,373 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Downloads an artifact from a {@link RepositoryServer} through a proxy that drops connections.
+ */
+public class ChunkedArtifactDownloaderTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNK_COUNT = 4;
+    private static final String ARTIFACT_PATH = "org/example/large/1.0/large-1.0.zip";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Artifact artifact = new DefaultArtifact("org.example:large:zip:1.0");
+    private final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+    private byte[] content;
+    private RepositoryServer server;
+    private Thread serverThread;
+    private DroppingProxy proxy;
+    private RemoteRepository repository;
+    private DependencyDownloader dependencyDownloader;
+    private File target;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[CHUNK_COUNT * CHUNK_SIZE];
+        new Random(42).nextBytes(content);
+        File file = new File(temporaryFolder.newFolder("remote"), ARTIFACT_PATH);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content);
+
+        server = new RepositoryServer(Collections.singletonMap(ARTIFACT_PATH, file), Collections.<String, byte[]>emptyMap(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4, new SystemStreamLog());
+        serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.serve();
+            }
+        });
+        serverThread.start();
+        proxy = new DroppingProxy(server.getAddress());
+        repository = new RemoteRepository.Builder("remote", "default", "http://127.0.0.1:" + proxy.getPort() + "/").build();
+        target = new File(temporaryFolder.newFolder("local"), ARTIFACT_PATH);
+        dependencyDownloader = TestDependencyDownloaders.create(temporaryFolder.newFolder("repository"), repository.getUrl(),
+                Collections.<String, Object>emptyMap());
+        dependencyDownloader.enableFailFast();
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        proxy.close();
+        server.close();
+        serverThread.join(10000);
+    }
+
+    @Test
+    public void resumesChunksAfterDroppedConnections() throws IOException {
+        proxy.dropConnections(3, 10000);
+
+        assertTrue(newDownloader(2).download(session, repository, artifact, target));
+
+        assertTrue(proxy.droppedConnections.get() > 0);
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertTrue(new File(target.getPath() + ".sha1").isFile());
+        assertFalse(new File(target.getPath() + ".chunked").exists());
+        assertFalse(new File(target.getPath() + ".chunked.state").exists());
+    }
+
+    @Test
+    public void resumesDownloadFromStateOfPreviousRun() throws IOException {
+        downloadFirstTwoChunks();
+
+        proxy.forwardedBytes.set(0);
+        assertTrue(newDownloader(1).download(session, repository, artifact, target));
+
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        // Only the two missing chunks, the checksum and the headers have been downloaded
+        assertTrue(proxy.forwardedBytes.get() < (CHUNK_COUNT - 2) * CHUNK_SIZE + 4096);
+        assertFalse(new File(target.getPath() + ".chunked.state").exists());
+    }
+
+    @Test
+    public void discardsPartialDownloadOnChecksumMismatch() throws IOException {
+        downloadFirstTwoChunks();
+        File partFile = new File(target.getPath() + ".chunked");
+        try (FileChannel channel = FileChannel.open(partFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[100]), 0);
+        }
+
+        assertFalse(newDownloader(1).download(session, repository, artifact, target));
+
+        assertFalse(target.exists());
+        assertFalse(partFile.exists());
+        assertFalse(new File(target.getPath() + ".chunked.state").exists());
+
+        assertTrue(newDownloader(1).download(session, repository, artifact, target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void keepsCompletedChunksIfCancelled() throws IOException {
+        // Cancel while the second chunk is downloaded
+        proxy.cancelAfter(CHUNK_SIZE + CHUNK_SIZE / 2, dependencyDownloader);
+
+        assertFalse(newDownloader(1).download(session, repository, artifact, target));
+
+        assertFalse(target.exists());
+        assertTrue(new File(target.getPath() + ".chunked").isFile());
+        assertEquals("0", loadState().getProperty("completed"));
+        assertTrue(proxy.forwardedBytes.get() < 3 * CHUNK_SIZE);
+    }
+
+    @Test
+    public void leavesArtifactsWithoutChecksumToRegularDownload() throws IOException {
+        proxy.hideChecksums = true;
+
+        assertFalse(newDownloader(2).download(session, repository, artifact, target));
+
+        assertFalse(target.exists());
+        assertFalse(new File(target.getPath() + ".chunked").exists());
+        assertTrue(proxy.forwardedBytes.get() < CHUNK_SIZE);
+    }
+
+    @Test
+    public void sendsConfiguredHeaders() throws IOException {
+        Map<String, String> headers = Collections.singletonMap("X-Repository-Token", "secret");
+        session.setConfigProperty("aether.connector.http.headers.remote", headers);
+        session.setConfigProperty("aether.connector.userAgent", "go-offline-test");
+
+        assertTrue(newDownloader(2).download(session, repository, artifact, target));
+
+        String requests = proxy.requests.toString();
+        assertEquals(2 + CHUNK_COUNT, count(requests, "X-Repository-Token: secret\r\n"));
+        assertEquals(2 + CHUNK_COUNT, count(requests, "User-Agent: go-offline-test\r\n"));
+    }
+
+    @Test
+    public void leavesUnsupportedAuthenticationToRegularDownload() {
+        RemoteRepository ntlmRepository = new RemoteRepository.Builder(repository).setAuthentication(new AuthenticationBuilder().addUsername("user")
+                .addPassword("password").addNtlm("workstation", "domain").build()).build();
+
+        assertFalse(newDownloader(2).download(session, ntlmRepository, artifact, target));
+
+        assertEquals(0, proxy.requests.length());
+    }
+
+    /**
+     * Run a download that fails after the first two chunks, because the proxy refuses all further connections.
+     */
+    private void downloadFirstTwoChunks() throws IOException {
+        proxy.refuseAfter(2 * CHUNK_SIZE + 4096);
+
+        assertFalse(newDownloader(1).download(session, repository, artifact, target));
+
+        assertFalse(target.exists());
+        assertTrue(new File(target.getPath() + ".chunked").isFile());
+        assertEquals("0,1", loadState().getProperty("completed"));
+        proxy.refuseAfter(Long.MAX_VALUE);
+    }
+
+    private Properties loadState() throws IOException {
+        Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(new File(target.getPath() + ".chunked.state").toPath())) {
+            state.load(in);
+        }
+        return state;
+    }
+
+    private ChunkedArtifactDownloader newDownloader(int threads) {
+        return new ChunkedArtifactDownloader(0, CHUNK_SIZE, threads, dependencyDownloader, new SystemStreamLog());
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * TCP proxy that drops the first connections after a number of response bytes or refuses to forward anything once a total
+     * number of response bytes has been forwarded. It records the requests, can cancel a {@link DependencyDownloader} once a total
+     * number of response bytes has been forwarded and can answer checksum requests with 404.
+     */
+    private static final class DroppingProxy implements Closeable {
+
+        private final ServerSocket serverSocket;
+        private final InetSocketAddress target;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private final AtomicInteger connectionsToDrop = new AtomicInteger();
+        private final AtomicInteger droppedConnections = new AtomicInteger();
+        private final AtomicLong forwardedBytes = new AtomicLong();
+        private final StringBuffer requests = new StringBuffer();
+        private volatile long dropAfterBytes;
+        private volatile long refuseAfterBytes = Long.MAX_VALUE;
+        private volatile long cancelAfterBytes = Long.MAX_VALUE;
+        private volatile DependencyDownloader downloaderToCancel;
+        private volatile boolean hideChecksums;
+
+        DroppingProxy(InetSocketAddress target) throws IOException {
+            this.target = target;
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    accept();
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        void dropConnections(int count, long afterBytes) {
+            dropAfterBytes = afterBytes;
+            connectionsToDrop.set(count);
+        }
+
+        void refuseAfter(long totalBytes) {
+            refuseAfterBytes = totalBytes;
+        }
+
+        void cancelAfter(long totalBytes, DependencyDownloader dependencyDownloader) {
+            downloaderToCancel = dependencyDownloader;
+            cancelAfterBytes = totalBytes;
+        }
+
+        private void accept() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    final Socket client = serverSocket.accept();
+                    final Socket upstream = new Socket(target.getAddress(), target.getPort());
+                    sockets.add(client);
+                    sockets.add(upstream);
+                    final boolean drop = connectionsToDrop.getAndDecrement() > 0;
+                    start(new Runnable() {
+                        @Override
+                        public void run() {
+                            forwardRequests(client, upstream);
+                        }
+                    });
+                    start(new Runnable() {
+                        @Override
+                        public void run() {
+                            forwardResponses(upstream, client, drop);
+                        }
+                    });
+                } catch (IOException e) {
+                    // Closed
+                }
+            }
+        }
+
+        private static void start(Runnable runnable) {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void forwardRequests(Socket client, Socket upstream) {
+            byte[] buffer = new byte[1024];
+            try (InputStream in = client.getInputStream(); OutputStream out = upstream.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    String request = new String(buffer, 0, read, StandardCharsets.ISO_8859_1);
+                    requests.append(request);
+                    if (hideChecksums && (request.contains(".sha1 HTTP/") || request.contains(".md5 HTTP/"))) {
+                        // Answer without forwarding and close the connection, so it is not used for further requests
+                        client.getOutputStream().write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                                .getBytes(StandardCharsets.ISO_8859_1));
+                        return;
+                    }
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                // Closed
+            } finally {
+                closeQuietly(client, upstream);
+            }
+        }
+
+        private void forwardResponses(Socket upstream, Socket client, boolean drop) {
+            byte[] buffer = new byte[1024];
+            long connectionBytes = 0;
+            try (InputStream in = upstream.getInputStream(); OutputStream out = client.getOutputStream()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (forwardedBytes.get() + read > refuseAfterBytes) {
+                        return;
+                    }
+                    if (drop && connectionBytes + read > dropAfterBytes) {
+                        droppedConnections.incrementAndGet();
+                        return;
+                    }
+                    if (downloaderToCancel != null && forwardedBytes.get() + read > cancelAfterBytes) {
+                        downloaderToCancel.cancel("Cancelled by test");
+                    }
+                    out.write(buffer, 0, read);
+                    out.flush();
+                    connectionBytes += read;
+                    forwardedBytes.addAndGet(read);
+                }
+            } catch (IOException e) {
+                // Closed
+            } finally {
+                closeQuietly(client, upstream);
+            }
+        }
+
+        private static void closeQuietly(Socket... sockets) {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            for (Socket socket : sockets) {
+                closeQuietly(socket);
+            }
+        }
+    }
+}
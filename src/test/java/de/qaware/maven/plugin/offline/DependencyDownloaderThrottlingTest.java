@@ -0,0 +1,166 @@
+package de.qaware.maven.plugin.offline;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Downloads artifacts from a local repository server that limits its bandwidth and rejects requests with HTTP 429.
+ */
+public class DependencyDownloaderThrottlingTest {
+
+    private static final int ARTIFACT_COUNT = 12;
+    private static final int BYTES_PER_MILLISECOND = 64;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private volatile int throttledRequestsPerArtifact;
+    private volatile String alwaysThrottledPath;
+    private HttpServer server;
+    private DependencyDownloader dependencyDownloader;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", new ThrottlingHandler());
+        server.start();
+
+        // Newer transports retry 429 responses themselves, which would hide the retries of the downloader
+        dependencyDownloader = TestDependencyDownloaders.create(temporaryFolder.newFolder("local"), "http://127.0.0.1:" + server.getAddress().getPort() + "/",
+                Collections.singletonMap("aether.connector.http.retryHandler.count", 0));
+        dependencyDownloader.enableFailFast();
+        dependencyDownloader.enableAdaptiveConcurrency(1, 8, 4);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void throttledDownloadsAreRetried() throws IOException {
+        throttledRequestsPerArtifact = 2;
+
+        dependencyDownloader.downloadArtifacts(createArtifacts());
+
+        assertEquals(Collections.<Exception>emptyList(), dependencyDownloader.getErrors());
+        assertFalse(dependencyDownloader.isCancelled());
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            assertTrue(getLocalFile(i).isFile());
+            assertEquals(3, requestCounts.get(getPath(i)).get());
+        }
+        // The concurrency of the repository is stored for the next run
+        Properties hints = new Properties();
+        try (InputStream in = Files.newInputStream(new File(temporaryFolder.getRoot(), "local/.go-offline/download-concurrency.properties").toPath())) {
+            hints.load(in);
+        }
+        String concurrency = hints.getProperty("http://127.0.0.1:" + server.getAddress().getPort());
+        assertTrue(concurrency, Integer.parseInt(concurrency) >= 1 && Integer.parseInt(concurrency) <= 8);
+    }
+
+    @Test
+    public void throttledDownloadsAreReportedOnceRetriesAreExhausted() {
+        alwaysThrottledPath = getPath(0);
+
+        dependencyDownloader.downloadArtifacts(createArtifacts());
+
+        List<Exception> errors = dependencyDownloader.getErrors();
+        assertEquals(1, errors.size());
+        assertEquals(ErrorCause.THROTTLED, ErrorCause.classify(errors.get(0)));
+        assertFalse(dependencyDownloader.isCancelled());
+        // The first attempt and three retries
+        assertEquals(4, requestCounts.get(getPath(0)).get());
+        for (int i = 1; i < ARTIFACT_COUNT; i++) {
+            assertTrue(getLocalFile(i).isFile());
+            assertEquals(1, requestCounts.get(getPath(i)).get());
+        }
+    }
+
+    private List<ArtifactWithRepoType> createArtifacts() {
+        List<ArtifactWithRepoType> artifacts = new ArrayList<>();
+        for (int i = 0; i < ARTIFACT_COUNT; i++) {
+            artifacts.add(new ArtifactWithRepoType(new DefaultArtifact("org.example:artifact" + i + ":1.0"), RepositoryType.MAIN));
+        }
+        return artifacts;
+    }
+
+    private static String getPath(int index) {
+        return "/org/example/artifact" + index + "/1.0/artifact" + index + "-1.0.jar";
+    }
+
+    private File getLocalFile(int index) {
+        return new File(new File(temporaryFolder.getRoot(), "local"), getPath(index).substring(1));
+    }
+
+    /**
+     * Serves a jar for every path, rejects the first requests of each path with HTTP 429 and sends the content with limited bandwidth.
+     */
+    private class ThrottlingHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String path = exchange.getRequestURI().getPath();
+                // Pooled connections are not reused, so failures of stale connections can not be confused with throttling
+                exchange.getResponseHeaders().set("Connection", "close");
+                if (!path.endsWith(".jar")) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                AtomicInteger count = requestCounts.get(path);
+                if (count == null) {
+                    requestCounts.putIfAbsent(path, new AtomicInteger());
+                    count = requestCounts.get(path);
+                }
+                int requestNumber = count.incrementAndGet();
+                if (path.equals(alwaysThrottledPath) || requestNumber <= throttledRequestsPerArtifact) {
+                    exchange.sendResponseHeaders(429, -1);
+                    return;
+                }
+                byte[] content = new byte[4096];
+                byte[] name = path.getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(name, 0, content, 0, name.length);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    for (int offset = 0; offset < content.length; offset += 1024) {
+                        out.write(content, offset, 1024);
+                        out.flush();
+                        Thread.sleep(1024 / BYTES_PER_MILLISECOND);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+}
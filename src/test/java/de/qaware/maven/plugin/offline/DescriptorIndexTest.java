@@ -0,0 +1,149 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stores collect results in a {@link DescriptorIndex} and looks them up again.
+ */
+public class DescriptorIndexTest {
+
+    private static final RemoteRepository CENTRAL = new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Map<String, String> systemProperties = new HashMap<>();
+    private final Map<String, String> userProperties = new HashMap<>();
+    private final List<Artifact> artifacts = Arrays.<Artifact>asList(new DefaultArtifact("org.example:app:1.0"), new DefaultArtifact("org.example:lib:jar:tests:2.0"));
+    private File localRepository;
+    private File pom;
+
+    @Before
+    public void setUp() throws IOException {
+        localRepository = temporaryFolder.newFolder("repository");
+        pom = new File(localRepository, "org/example/lib/2.0/lib-2.0.pom");
+        Files.createDirectories(pom.getParentFile().toPath());
+        Files.write(pom.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+        systemProperties.put("java.version", "1.8.0_402");
+        systemProperties.put("os.name", "Linux");
+        systemProperties.put("env.BUILD_NUMBER", "1");
+        userProperties.put("skipTests", "true");
+    }
+
+    @Test
+    public void findsStoredEntryInLaterRun() throws IOException {
+        DescriptorIndex index = newIndex();
+        String key = index.keyOf(newRequest("org.example:app:1.0"), RepositoryType.MAIN);
+        assertNull(index.lookup(key));
+        index.store(key, artifacts, Collections.singletonList(pom));
+        assertEquals(artifacts.size(), index.lookup(key).size());
+        index.save();
+
+        systemProperties.put("env.BUILD_NUMBER", "2");
+        DescriptorIndex nextIndex = newIndex();
+        String nextKey = nextIndex.keyOf(newRequest("org.example:app:1.0"), RepositoryType.MAIN);
+        assertEquals(key, nextKey);
+        Set<Artifact> found = nextIndex.lookup(nextKey);
+        assertEquals(artifacts.size(), found.size());
+        for (Artifact artifact : artifacts) {
+            assertTrue(artifact + " missing", found.contains(artifact));
+        }
+        assertNull(nextIndex.lookup(nextIndex.keyOf(newRequest("org.example:app:1.1"), RepositoryType.MAIN)));
+    }
+
+    @Test
+    public void separatesRequestsOfDifferentRepositoryTypes() {
+        DescriptorIndex index = newIndex();
+        CollectRequest request = newRequest("org.example:app:1.0");
+
+        assertFalse(index.keyOf(request, RepositoryType.MAIN).equals(index.keyOf(request, RepositoryType.PLUGIN)));
+    }
+
+    @Test
+    public void ignoresEntryIfPomChanged() throws IOException {
+        DescriptorIndex index = newIndex();
+        String key = index.keyOf(newRequest("org.example:app:1.0"), RepositoryType.MAIN);
+        index.store(key, artifacts, Collections.singletonList(pom));
+        index.save();
+
+        Files.write(pom.toPath(), "<project><modelVersion>4.0.0</modelVersion></project>".getBytes(StandardCharsets.UTF_8));
+        assertNull(newIndex().lookup(key));
+
+        Files.delete(pom.toPath());
+        assertNull(newIndex().lookup(key));
+    }
+
+    @Test
+    public void ignoresEntryIfPomWasReplacedWithSameSize() throws IOException {
+        DescriptorIndex index = newIndex();
+        String key = index.keyOf(newRequest("org.example:app:1.0"), RepositoryType.MAIN);
+        index.store(key, artifacts, Collections.singletonList(pom));
+        index.save();
+
+        Files.write(pom.toPath(), "<pro ect/>".getBytes(StandardCharsets.UTF_8));
+        pom.setLastModified(pom.lastModified() + 10000);
+
+        assertNull(newIndex().lookup(key));
+    }
+
+    @Test
+    public void usesDifferentKeysIfProfileActivationInputsChange() {
+        CollectRequest request = newRequest("org.example:app:1.0");
+        String key = newIndex().keyOf(request, RepositoryType.MAIN);
+
+        systemProperties.put("java.version", "17.0.10");
+        String javaKey = newIndex().keyOf(request, RepositoryType.MAIN);
+        assertFalse(key.equals(javaKey));
+
+        userProperties.put("release", "true");
+        assertFalse(javaKey.equals(newIndex().keyOf(request, RepositoryType.MAIN)));
+    }
+
+    @Test
+    public void ignoresCorruptIndexFile() throws IOException {
+        File indexFile = new File(localRepository, ".go-offline/descriptor-index.bin");
+        Files.createDirectories(indexFile.getParentFile().toPath());
+        Files.write(indexFile.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13});
+
+        DescriptorIndex index = newIndex();
+        String key = index.keyOf(newRequest("org.example:app:1.0"), RepositoryType.MAIN);
+        assertNull(index.lookup(key));
+        index.store(key, artifacts, Collections.singletonList(pom));
+        index.save();
+
+        assertEquals(artifacts.size(), newIndex().lookup(key).size());
+    }
+
+    private DescriptorIndex newIndex() {
+        return new DescriptorIndex(localRepository, systemProperties, userProperties, new SystemStreamLog());
+    }
+
+    private static CollectRequest newRequest(String coordinates) {
+        return new CollectRequest(new Dependency(new DefaultArtifact(coordinates), null), Collections.singletonList(CENTRAL));
+    }
+}
@@ -0,0 +1,75 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.ArtifactTransferException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Classifies the errors reported by the http transport and wagon.
+ */
+public class ErrorCauseTest {
+
+    private static final DefaultArtifact ARTIFACT = new DefaultArtifact("org.example:lib:1.0");
+    private static final RemoteRepository REPOSITORY = new RemoteRepository.Builder("central", "default", "https://repo.example.org/").build();
+
+    @Test
+    public void classifiesConnectFailuresAsUnreachable() {
+        assertEquals(ErrorCause.REPOSITORY_UNREACHABLE, ErrorCause.classify(transferFailed(new UnknownHostException("repo.example.org"))));
+        assertEquals(ErrorCause.REPOSITORY_UNREACHABLE, ErrorCause.classify(transferFailed(new ConnectException("Connection refused"))));
+        assertEquals(ErrorCause.REPOSITORY_UNREACHABLE, ErrorCause.classify(transferFailed(new ConnectTimeoutException("Connect to repo.example.org timed out"))));
+        assertEquals(ErrorCause.REPOSITORY_UNREACHABLE, ErrorCause.classify(transferFailed(new SocketTimeoutException("connect timed out"))));
+        assertTrue(ErrorCause.REPOSITORY_UNREACHABLE.isUnrecoverable());
+    }
+
+    @Test
+    public void doesNotClassifyReadTimeoutsAsUnreachable() {
+        ErrorCause cause = ErrorCause.classify(transferFailed(new SocketTimeoutException("Read timed out")));
+
+        assertEquals(ErrorCause.OTHER, cause);
+        assertFalse(cause.isUnrecoverable());
+    }
+
+    @Test
+    public void classifiesHttpStatusOfTheTransport() {
+        assertEquals(ErrorCause.AUTHORIZATION, ErrorCause.classify(transferFailed(new HttpResponseException(401, "Unauthorized"))));
+        assertEquals(ErrorCause.AUTHORIZATION, ErrorCause.classify(transferFailed(new HttpResponseException(403, ""))));
+        assertEquals(ErrorCause.THROTTLED, ErrorCause.classify(transferFailed(new HttpResponseException(429, ""))));
+        assertEquals(ErrorCause.OTHER, ErrorCause.classify(transferFailed(new HttpResponseException(500, "Forbidden"))));
+    }
+
+    @Test
+    public void classifiesStatusLineReportedByWagon() {
+        assertEquals(ErrorCause.THROTTLED,
+                ErrorCause.classify(transferFailed(new IOException("transfer failed for https://repo.example.org/lib.jar, status: 429 Too Many Requests"))));
+        assertEquals(ErrorCause.AUTHORIZATION,
+                ErrorCause.classify(transferFailed(new IOException("transfer failed for https://repo.example.org/lib.jar, status: 403 Forbidden"))));
+    }
+
+    @Test
+    public void ignoresStatusWordsInOtherMessages() {
+        assertEquals(ErrorCause.OTHER, ErrorCause.classify(transferFailed(new IOException("Forbidden characters in path"))));
+        assertEquals(ErrorCause.OTHER, ErrorCause.classify(transferFailed(new IOException("Unauthorized change of /tmp/status code: 429"))));
+    }
+
+    @Test
+    public void classifiesMissingArtifacts() {
+        assertEquals(ErrorCause.ARTIFACT_NOT_FOUND, ErrorCause.classify(new ArtifactNotFoundException(ARTIFACT, REPOSITORY)));
+    }
+
+    private static Exception transferFailed(Exception cause) {
+        return new ArtifactTransferException(ARTIFACT, REPOSITORY, cause);
+    }
+}
@@ -0,0 +1,71 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Writes and reads a {@link Lockfile}.
+ */
+public class LockfileTest {
+
+    private static final String CHECKSUM = "a5f3ae6c5f4e7ebb5e4d0ad1b3e1e4c6d8f2b3c9d0e1f2a3b4c5d6e7f8091a2b";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writesSortedArtifactsAndReadsThemAgain() throws IOException {
+        ArtifactWithRepoType release = new ArtifactWithRepoType(new DefaultArtifact("org.example:lib:1.0"), RepositoryType.MAIN);
+        ArtifactWithRepoType sources = new ArtifactWithRepoType(new DefaultArtifact("org.example:lib:jar:sources:1.0"), RepositoryType.MAIN);
+        ArtifactWithRepoType snapshot = new ArtifactWithRepoType(new DefaultArtifact("org.example:app:1.1-SNAPSHOT"), RepositoryType.MAIN);
+        ArtifactWithRepoType plugin = new ArtifactWithRepoType(new DefaultArtifact("org.example:example-maven-plugin:2.0"), RepositoryType.PLUGIN);
+        Lockfile lockfile = new Lockfile();
+        lockfile.add(plugin, CHECKSUM);
+        lockfile.add(release, CHECKSUM);
+        lockfile.add(sources, CHECKSUM);
+        lockfile.add(snapshot, null);
+        File file = new File(temporaryFolder.getRoot(), "lock/go-offline.lock");
+
+        lockfile.write(file);
+
+        assertEquals(Arrays.asList(
+                "# go-offline-maven-plugin lockfile v1",
+                "MAIN org.example:app:jar:1.1-SNAPSHOT unverified",
+                "MAIN org.example:lib:jar:1.0 " + CHECKSUM,
+                "MAIN org.example:lib:jar:sources:1.0 " + CHECKSUM,
+                "PLUGIN org.example:example-maven-plugin:jar:2.0 " + CHECKSUM), Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        Lockfile read = Lockfile.read(file);
+        assertEquals(4, read.getArtifacts().size());
+        assertEquals(CHECKSUM, read.getChecksum(sources));
+        assertEquals(CHECKSUM, read.getChecksum(plugin));
+        assertNull(read.getChecksum(snapshot));
+        assertNull(read.getChecksum(new ArtifactWithRepoType(release.getArtifact(), RepositoryType.PLUGIN)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFileWithoutHeader() throws IOException {
+        File file = temporaryFolder.newFile("go-offline.lock");
+        Files.write(file.toPath(), ("MAIN org.example:lib:jar:1.0 " + CHECKSUM + "\n").getBytes(StandardCharsets.UTF_8));
+
+        Lockfile.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidLines() throws IOException {
+        File file = temporaryFolder.newFile("go-offline.lock");
+        Files.write(file.toPath(), ("# go-offline-maven-plugin lockfile v1\nMAIN org.example:lib:jar:1.0\n").getBytes(StandardCharsets.UTF_8));
+
+        Lockfile.read(file);
+    }
+}
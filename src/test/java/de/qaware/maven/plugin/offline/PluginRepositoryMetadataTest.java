@@ -0,0 +1,96 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Creates the metadata for plugin jars with and without plugin descriptors.
+ */
+public class PluginRepositoryMetadataTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void createsGroupAndArtifactMetadataForPlugins() throws IOException, XmlPullParserException {
+        PluginRepositoryMetadata metadata = new PluginRepositoryMetadata();
+        assertTrue(metadata.addArtifact(new DefaultArtifact("org.example.plugins:example-maven-plugin:1.9"), createPlugin("example")));
+        assertTrue(metadata.addArtifact(new DefaultArtifact("org.example.plugins:example-maven-plugin:1.10"), createPlugin("example")));
+        assertTrue(metadata.addArtifact(new DefaultArtifact("org.example.plugins:other-maven-plugin:2.0"), createPlugin("other")));
+        assertFalse(metadata.addArtifact(new DefaultArtifact("org.example.plugins:plugin-dependency:1.0"), createJar(null)));
+        assertFalse(metadata.addArtifact(new DefaultArtifact("org.example.plugins:example-maven-plugin:pom:1.9"), createPlugin("example")));
+
+        Map<String, byte[]> files = metadata.getFiles();
+        assertEquals(3, files.size());
+
+        Xpp3Dom[] groupPlugins = Xpp3DomBuilder.build(new InputStreamReader(new ByteArrayInputStream(files.get("org/example/plugins/maven-metadata.xml")),
+                StandardCharsets.UTF_8)).getChild("plugins").getChildren("plugin");
+        assertEquals(2, groupPlugins.length);
+        assertEquals("example-maven-plugin", groupPlugins[0].getChild("artifactId").getValue());
+        assertEquals("example", groupPlugins[0].getChild("prefix").getValue());
+        assertEquals("Example Plugin", groupPlugins[0].getChild("name").getValue());
+        assertEquals("other", groupPlugins[1].getChild("prefix").getValue());
+
+        Metadata artifactMetadata = read(files.get("org/example/plugins/example-maven-plugin/maven-metadata.xml"));
+        assertEquals("org.example.plugins", artifactMetadata.getGroupId());
+        assertEquals("example-maven-plugin", artifactMetadata.getArtifactId());
+        assertEquals(Arrays.asList("1.9", "1.10"), artifactMetadata.getVersioning().getVersions());
+        assertEquals("1.10", artifactMetadata.getVersioning().getRelease());
+        assertEquals("1.10", artifactMetadata.getVersioning().getLatest());
+        assertEquals(14, artifactMetadata.getVersioning().getLastUpdated().length());
+
+        assertTrue(files.containsKey("org/example/plugins/other-maven-plugin/maven-metadata.xml"));
+    }
+
+    @Test
+    public void createsNoMetadataWithoutPlugins() throws IOException {
+        PluginRepositoryMetadata metadata = new PluginRepositoryMetadata();
+        assertFalse(metadata.addArtifact(new DefaultArtifact("org.example:lib:1.0"), createJar(null)));
+        assertTrue(metadata.getFiles().isEmpty());
+    }
+
+    private File createPlugin(String goalPrefix) throws IOException {
+        return createJar("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<plugin>\n  <name>Example Plugin</name>\n  <goalPrefix>" + goalPrefix
+                + "</goalPrefix>\n  <mojos/>\n</plugin>\n");
+    }
+
+    private File createJar(String pluginDescriptor) throws IOException {
+        File jar = temporaryFolder.newFile();
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new ZipEntry("META-INF/maven/example.properties"));
+            out.closeEntry();
+            if (pluginDescriptor != null) {
+                out.putNextEntry(new ZipEntry("META-INF/maven/plugin.xml"));
+                out.write(pluginDescriptor.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static Metadata read(byte[] content) throws IOException, XmlPullParserException {
+        return new MetadataXpp3Reader().read(new ByteArrayInputStream(content));
+    }
+}
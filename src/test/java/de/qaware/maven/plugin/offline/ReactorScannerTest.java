@@ -0,0 +1,188 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.model.building.DefaultModelBuilderFactory;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scans a module tree with a {@link ReactorScanner} and downloads the dependencies of the scanned modules.
+ */
+public class ReactorScannerTest {
+
+    private static final String LIB_PATH = "org/example/lib/1.0/lib-1.0";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File root;
+    private File localRepository;
+    private RepositorySystem repositorySystem;
+    private ReactorScanner scanner;
+    private final DefaultProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest();
+
+    @Before
+    public void setUp() throws IOException {
+        root = temporaryFolder.newFolder("build");
+        localRepository = temporaryFolder.newFolder("repository");
+        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+        locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+        locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+        repositorySystem = locator.getService(RepositorySystem.class);
+        scanner = new ReactorScanner(new DefaultModelBuilderFactory().newInstance(), repositorySystem, locator.getService(RemoteRepositoryManager.class),
+                new TestDependencyDownloaders.TestArtifactHandlerManager());
+
+        DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+        session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(session, new LocalRepository(localRepository)));
+        buildingRequest.setRepositorySession(session);
+        Properties systemProperties = new Properties();
+        systemProperties.setProperty("java.version", System.getProperty("java.version"));
+        buildingRequest.setSystemProperties(systemProperties);
+        buildingRequest.setUserProperties(new Properties());
+
+        // The parent uses a CI friendly version, module b is only part of the build with the profile "extra" and refers to its parent
+        // without relative path, so it is resolved from the reactor
+        write("pom.xml", project("<groupId>org.example</groupId><artifactId>root</artifactId><version>${revision}</version><packaging>pom</packaging>"
+                + "<properties><revision>1.0</revision></properties><modules><module>a</module></modules>"
+                + "<profiles><profile><id>extra</id><modules><module>b</module></modules></profile></profiles>"));
+        write("a/pom.xml", project(parent("") + "<artifactId>a</artifactId><packaging>pom</packaging><modules><module>a1</module><module>a2</module></modules>"));
+        write("a/a1/pom.xml", project(parent("../../pom.xml") + "<artifactId>a1</artifactId>"));
+        write("a/a2/pom.xml", project(parent("../../pom.xml") + "<artifactId>a2</artifactId>"));
+        write("b/pom.xml", project(parent("<relativePath/>") + "<artifactId>b</artifactId>"));
+    }
+
+    @Test
+    public void scansModulesOfActiveProfiles() throws IOException, ModelBuildingException {
+        assertEquals(Arrays.asList("root", "a", "a1", "a2"), getArtifactIds(scan()));
+
+        buildingRequest.setActiveProfileIds(Collections.singletonList("extra"));
+        List<MavenProject> projects = scan();
+
+        assertEquals(Arrays.asList("root", "a", "b", "a1", "a2"), getArtifactIds(projects));
+        MavenProject b = projects.get(2);
+        assertEquals("1.0", b.getVersion());
+        assertEquals("jar", b.getPackaging());
+        assertEquals(new File(root, "b/pom.xml").getCanonicalFile(), b.getFile());
+        assertEquals("b", b.getArtifact().getArtifactId());
+    }
+
+    @Test
+    public void scansWideModuleTrees() throws IOException, ModelBuildingException {
+        StringBuilder modules = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            modules.append("<module>m").append(i).append("</module>");
+            write("a/a1/m" + i + "/pom.xml", project(parent("../../../pom.xml") + "<artifactId>m" + i + "</artifactId>"));
+        }
+        write("a/a1/pom.xml", project(parent("../../pom.xml") + "<artifactId>a1</artifactId><packaging>pom</packaging><modules>" + modules
+                + "</modules>"));
+
+        List<String> artifactIds = getArtifactIds(scan());
+
+        assertEquals(54, artifactIds.size());
+        assertEquals(Arrays.asList("root", "a", "a1", "a2", "m0", "m1"), artifactIds.subList(0, 6));
+    }
+
+    @Test
+    public void downloadsFromRepositoriesDeclaredInModules() throws IOException, ModelBuildingException, InterruptedException {
+        File remote = temporaryFolder.newFolder("remote");
+        Map<String, File> files = new HashMap<>();
+        files.put(LIB_PATH + ".jar", writeFile(new File(remote, LIB_PATH + ".jar"), "jar"));
+        files.put(LIB_PATH + ".pom", writeFile(new File(remote, LIB_PATH + ".pom"),
+                project("<groupId>org.example</groupId><artifactId>lib</artifactId><version>1.0</version>")));
+        final RepositoryServer server = new RepositoryServer(files, Collections.<String, byte[]>emptyMap(),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, new SystemStreamLog());
+        Thread serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.serve();
+            }
+        });
+        serverThread.start();
+        try {
+            // Only module a2 knows the repository that contains its dependency
+            write("a/a2/pom.xml", project(parent("../../pom.xml") + "<artifactId>a2</artifactId>"
+                    + "<repositories><repository><id>module</id><url>http://127.0.0.1:" + server.getAddress().getPort() + "/</url></repository></repositories>"
+                    + "<dependencies><dependency><groupId>org.example</groupId><artifactId>lib</artifactId><version>1.0</version></dependency></dependencies>"));
+            List<MavenProject> projects = scan();
+            Map<String, Object> configProperties = new HashMap<>();
+            configProperties.put("aether.connector.http.retryHandler.count", 0);
+            DependencyDownloader dependencyDownloader = TestDependencyDownloaders.create(localRepository, "http://127.0.0.1:1/", configProperties, projects);
+
+            Set<ArtifactWithRepoType> artifacts = dependencyDownloader.resolveDependencies(projects.get(3));
+            dependencyDownloader.downloadArtifacts(artifacts);
+
+            assertEquals(1, artifacts.size());
+            assertEquals("org.example:lib:jar:1.0", artifacts.iterator().next().getArtifact().toString());
+            assertTrue(new File(localRepository, LIB_PATH + ".jar").isFile());
+            assertTrue(String.valueOf(dependencyDownloader.getErrors()), dependencyDownloader.getErrors().isEmpty());
+        } finally {
+            server.close();
+            serverThread.join(10000);
+        }
+    }
+
+    private List<MavenProject> scan() throws IOException, ModelBuildingException {
+        scanner.init(buildingRequest, new SystemStreamLog());
+        return scanner.scan(Collections.singletonList(new File(root, "pom.xml")));
+    }
+
+    private static List<String> getArtifactIds(List<MavenProject> projects) {
+        List<String> artifactIds = new ArrayList<>();
+        for (MavenProject project : projects) {
+            artifactIds.add(project.getArtifactId());
+        }
+        return artifactIds;
+    }
+
+    private static String project(String content) {
+        return "<project><modelVersion>4.0.0</modelVersion>" + content + "</project>";
+    }
+
+    private static String parent(String relativePath) {
+        return "<parent><groupId>org.example</groupId><artifactId>root</artifactId><version>1.0</version>"
+                + (relativePath.startsWith("<") ? relativePath : relativePath.isEmpty() ? "" : "<relativePath>" + relativePath + "</relativePath>") + "</parent>";
+    }
+
+    private void write(String path, String content) throws IOException {
+        writeFile(new File(root, path), content);
+    }
+
+    private static File writeFile(File file, String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
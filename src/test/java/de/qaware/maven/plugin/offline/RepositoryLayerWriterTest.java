@@ -0,0 +1,134 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Writes the layers of a local repository containing releases, snapshots and the bookkeeping files of the resolver.
+ */
+public class RepositoryLayerWriterTest {
+
+    private static final String RELEASE_DIRECTORY = "org/example/lib/1.0/";
+    private static final String SNAPSHOT_DIRECTORY = "com/acme/app/1.1-SNAPSHOT/";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<ArtifactWithRepoType> artifacts = Arrays.asList(
+            new ArtifactWithRepoType(new DefaultArtifact("org.example:lib:1.0"), RepositoryType.MAIN),
+            new ArtifactWithRepoType(new DefaultArtifact("org.example:lib:pom:1.0"), RepositoryType.MAIN),
+            new ArtifactWithRepoType(new DefaultArtifact("com.acme:app:1.1-SNAPSHOT"), RepositoryType.MAIN));
+    private File localRepository;
+    private File outputDirectory;
+    private DependencyDownloader dependencyDownloader;
+
+    @Before
+    public void setUp() throws IOException {
+        localRepository = temporaryFolder.newFolder("repository");
+        outputDirectory = temporaryFolder.newFolder("layers");
+        write(RELEASE_DIRECTORY + "lib-1.0.jar", "lib");
+        write(RELEASE_DIRECTORY + "lib-1.0.pom", "<project/>");
+        write(SNAPSHOT_DIRECTORY + "app-1.1-SNAPSHOT.jar", "app");
+        writeBookkeepingFiles("1");
+        dependencyDownloader = TestDependencyDownloaders.create(localRepository, "http://127.0.0.1:1/", Collections.<String, Object>emptyMap());
+    }
+
+    @Test
+    public void writesArtifactsWithoutBookkeepingFilesToTheirLayers() throws IOException {
+        newWriter().write(artifacts, dependencyDownloader);
+
+        assertTrue(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "lib-1.0.jar").isFile());
+        assertTrue(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "lib-1.0.pom").isFile());
+        assertTrue(new File(outputDirectory, "volatile/" + SNAPSHOT_DIRECTORY + "app-1.1-SNAPSHOT.jar").isFile());
+        assertFalse(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "_remote.repositories").exists());
+        assertFalse(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "lib-1.0.jar.lastUpdated").exists());
+        assertFalse(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "resolver-status.properties").exists());
+        assertFalse(new File(outputDirectory, "volatile/" + SNAPSHOT_DIRECTORY + "maven-metadata-remote.xml").exists());
+        assertFalse(new File(outputDirectory, "volatile/" + SNAPSHOT_DIRECTORY + "_remote.repositories").exists());
+    }
+
+    @Test
+    public void keepsLayerHashesIfOnlyBookkeepingFilesChange() throws IOException {
+        newWriter().write(artifacts, dependencyDownloader);
+        String recentHash = readHash("recent");
+        String volatileHash = readHash("volatile");
+
+        writeBookkeepingFiles("2");
+        File jar = new File(localRepository, RELEASE_DIRECTORY + "lib-1.0.jar");
+        jar.setLastModified(jar.lastModified() - 60000);
+        newWriter().write(artifacts, dependencyDownloader);
+
+        assertEquals(recentHash, readHash("recent"));
+        assertEquals(volatileHash, readHash("volatile"));
+    }
+
+    @Test
+    public void changesLayerHashIfAnArtifactChanges() throws IOException {
+        newWriter().write(artifacts, dependencyDownloader);
+        String recentHash = readHash("recent");
+        String volatileHash = readHash("volatile");
+
+        write(SNAPSHOT_DIRECTORY + "app-1.1-SNAPSHOT.jar", "app changed");
+        newWriter().write(artifacts, dependencyDownloader);
+
+        assertEquals(recentHash, readHash("recent"));
+        assertFalse(volatileHash.equals(readHash("volatile")));
+        assertEquals("app changed", read(new File(outputDirectory, "volatile/" + SNAPSHOT_DIRECTORY + "app-1.1-SNAPSHOT.jar")));
+    }
+
+    @Test
+    public void movesReleasesToStableLayerAfterTheConfiguredRuns() throws IOException {
+        for (int run = 0; run < 3; run++) {
+            newWriter().write(artifacts, dependencyDownloader);
+            assertTrue(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY + "lib-1.0.jar").isFile());
+        }
+
+        newWriter().write(artifacts, dependencyDownloader);
+
+        assertTrue(new File(outputDirectory, "stable/" + RELEASE_DIRECTORY + "lib-1.0.jar").isFile());
+        assertFalse(new File(outputDirectory, "recent/" + RELEASE_DIRECTORY).exists());
+        assertTrue(new File(outputDirectory, "volatile/" + SNAPSHOT_DIRECTORY + "app-1.1-SNAPSHOT.jar").isFile());
+    }
+
+    private RepositoryLayerWriter newWriter() {
+        return new RepositoryLayerWriter(outputDirectory, localRepository, 3, Collections.singleton("com.acme"), new SystemStreamLog());
+    }
+
+    private void writeBookkeepingFiles(String run) throws IOException {
+        write(RELEASE_DIRECTORY + "_remote.repositories", "#" + run + "\nlib-1.0.jar>remote=\n");
+        write(RELEASE_DIRECTORY + "lib-1.0.jar.lastUpdated", "#" + run + "\n");
+        write(RELEASE_DIRECTORY + "resolver-status.properties", "#" + run + "\n");
+        write(SNAPSHOT_DIRECTORY + "_remote.repositories", "#" + run + "\n");
+        write(SNAPSHOT_DIRECTORY + "maven-metadata-remote.xml", "<metadata><versioning><lastUpdated>" + run + "</lastUpdated></versioning></metadata>");
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(localRepository, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readHash(String layer) throws IOException {
+        return read(new File(outputDirectory, layer + ".sha256")).trim();
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}
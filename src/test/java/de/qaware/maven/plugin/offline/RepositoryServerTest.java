@@ -0,0 +1,237 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends raw HTTP requests to a {@link RepositoryServer}.
+ */
+public class RepositoryServerTest {
+
+    private static final String JAR_PATH = "org/example/lib/1.0/lib-1.0.jar";
+    private static final String METADATA_PATH = "org/example/maven-metadata.xml";
+    private static final byte[] JAR_CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] METADATA_CONTENT = "<metadata/>".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RepositoryServer server;
+    private Thread serverThread;
+    private Socket socket;
+
+    @Before
+    public void setUp() throws IOException {
+        File repository = temporaryFolder.newFolder("repository");
+        File jar = new File(repository, JAR_PATH);
+        Files.createDirectories(jar.getParentFile().toPath());
+        Files.write(jar.toPath(), JAR_CONTENT);
+        // Present in the local repository but not part of the served artifacts
+        Files.write(new File(jar.getParentFile(), "lib-1.0.pom").toPath(), METADATA_CONTENT);
+
+        server = new RepositoryServer(Collections.singletonMap(JAR_PATH, jar), Collections.singletonMap(METADATA_PATH, METADATA_CONTENT),
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 2, new SystemStreamLog());
+        serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.serve();
+            }
+        });
+        serverThread.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort());
+        socket.setSoTimeout(10000);
+    }
+
+    @After
+    public void tearDown() throws IOException, InterruptedException {
+        socket.close();
+        server.close();
+        serverThread.join(10000);
+    }
+
+    @Test
+    public void servesFilesAndChecksums() throws IOException, NoSuchAlgorithmException {
+        Response response = send("GET", JAR_PATH);
+        assertEquals(200, response.status);
+        assertArrayEquals(JAR_CONTENT, response.body);
+        assertEquals("bytes", response.headers.get("accept-ranges"));
+
+        response = send("GET", JAR_PATH + ".sha1");
+        assertEquals(200, response.status);
+        assertEquals(toHex(MessageDigest.getInstance("SHA-1").digest(JAR_CONTENT)), new String(response.body, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void servesGeneratedContentsAndTheirChecksums() throws IOException, NoSuchAlgorithmException {
+        Response response = send("GET", METADATA_PATH);
+        assertEquals(200, response.status);
+        assertArrayEquals(METADATA_CONTENT, response.body);
+
+        response = send("GET", METADATA_PATH + ".md5");
+        assertEquals(200, response.status);
+        assertEquals(toHex(MessageDigest.getInstance("MD5").digest(METADATA_CONTENT)), new String(response.body, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void servesByteRanges() throws IOException {
+        Response response = send("GET", JAR_PATH, "Range: bytes=2-5");
+        assertEquals(206, response.status);
+        assertArrayEquals(Arrays.copyOfRange(JAR_CONTENT, 2, 6), response.body);
+        assertEquals("bytes 2-5/20", response.headers.get("content-range"));
+
+        response = send("GET", JAR_PATH, "Range: bytes=15-");
+        assertEquals(206, response.status);
+        assertArrayEquals(Arrays.copyOfRange(JAR_CONTENT, 15, 20), response.body);
+
+        response = send("GET", JAR_PATH, "Range: bytes=-3");
+        assertEquals(206, response.status);
+        assertArrayEquals(Arrays.copyOfRange(JAR_CONTENT, 17, 20), response.body);
+
+        response = send("GET", JAR_PATH, "Range: bytes=10-100");
+        assertEquals(206, response.status);
+        assertEquals("bytes 10-19/20", response.headers.get("content-range"));
+
+        response = send("GET", JAR_PATH, "Range: bytes=20-");
+        assertEquals(416, response.status);
+        assertEquals("bytes */20", response.headers.get("content-range"));
+
+        // Multiple ranges are answered with the whole file
+        response = send("GET", JAR_PATH, "Range: bytes=0-1,4-5");
+        assertEquals(200, response.status);
+        assertArrayEquals(JAR_CONTENT, response.body);
+    }
+
+    @Test
+    public void answersHeadRequestsWithoutBody() throws IOException {
+        Response response = send("HEAD", JAR_PATH);
+        assertEquals(200, response.status);
+        assertEquals("20", response.headers.get("content-length"));
+        assertEquals(0, response.body.length);
+
+        response = send("HEAD", "org/example/lib/1.0/missing.jar");
+        assertEquals(404, response.status);
+        assertEquals(0, response.body.length);
+
+        // The connection is still in sync, so no body has been sent for the HEAD requests
+        response = send("GET", JAR_PATH);
+        assertEquals(200, response.status);
+        assertArrayEquals(JAR_CONTENT, response.body);
+    }
+
+    @Test
+    public void keepsConnectionsAlive() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            Response response = send("GET", JAR_PATH);
+            assertEquals(200, response.status);
+            assertEquals("keep-alive", response.headers.get("connection"));
+        }
+
+        Response response = send("GET", JAR_PATH, "Connection: close");
+        assertEquals(200, response.status);
+        assertEquals("close", response.headers.get("connection"));
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    @Test
+    public void answersPathsOutsideTheServedFilesWith404() throws IOException {
+        assertEquals(404, send("GET", "org/example/lib/1.0/lib-1.0.pom").status);
+        assertEquals(404, send("GET", "org/example/lib/1.0/lib-1.0.pom.sha1").status);
+        assertEquals(404, send("GET", "org/example/lib/1.0/../1.0/lib-1.0.pom").status);
+        assertEquals(404, send("GET", "org/example/lib/maven-metadata.xml").status);
+        assertEquals(404, send("GET", "").status);
+        assertEquals(405, send("PUT", JAR_PATH).status);
+        // The connection is kept alive after errors
+        assertEquals(200, send("GET", "/" + JAR_PATH).status);
+    }
+
+    private Response send(String method, String path, String... headers) throws IOException {
+        StringBuilder request = new StringBuilder();
+        request.append(method).append(' ').append(path.startsWith("/") ? path : "/" + path).append(" HTTP/1.1\r\n");
+        request.append("Host: localhost\r\n");
+        for (String header : headers) {
+            request.append(header).append("\r\n");
+        }
+        request.append("\r\n");
+        OutputStream out = socket.getOutputStream();
+        out.write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return readResponse(socket.getInputStream(), "HEAD".equals(method));
+    }
+
+    private static Response readResponse(InputStream in, boolean head) throws IOException {
+        String statusLine = readLine(in);
+        assertTrue(statusLine, statusLine.startsWith("HTTP/1.1 "));
+        Response response = new Response();
+        response.status = Integer.parseInt(statusLine.split(" ")[1]);
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            response.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        int length = head ? 0 : Integer.parseInt(response.headers.get("content-length"));
+        response.body = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(response.body, offset, length - offset);
+            if (read < 0) {
+                throw new IOException("Connection closed after " + offset + " of " + length + " bytes");
+            }
+            offset += read;
+        }
+        return response;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static final class Response {
+        private int status;
+        private final Map<String, String> headers = new HashMap<>();
+        private byte[] body;
+    }
+}
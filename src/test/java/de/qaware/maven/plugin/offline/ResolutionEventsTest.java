@@ -0,0 +1,53 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Creates the {@link ResolutionEvents} for the current JVM and records events with them.
+ */
+public class ResolutionEventsTest {
+
+    @Test
+    public void usesFlightRecorderEventsIfAvailable() {
+        ResolutionEvents events = ResolutionEvents.create(new SystemStreamLog());
+
+        if (isFlightRecorderAvailable()) {
+            assertEquals("de.qaware.maven.plugin.offline.JfrResolutionEvents", events.getClass().getName());
+        } else {
+            assertTrue(events == ResolutionEvents.NOOP);
+        }
+        recordEvents(events);
+    }
+
+    @Test
+    public void noopEventsRecordNothing() {
+        assertNull(ResolutionEvents.NOOP.beginCollection());
+        assertNull(ResolutionEvents.NOOP.beginDownloadBatch());
+        recordEvents(ResolutionEvents.NOOP);
+    }
+
+    private static void recordEvents(ResolutionEvents events) {
+        events.endCollection(events.beginCollection(), "project", "org.example:app:jar:1.0", 10, false, false);
+        events.endDownloadBatch(events.beginDownloadBatch(), 10, 1);
+        events.requestFailed("org.example:lib:jar:1.0", ErrorCause.ARTIFACT_NOT_FOUND, "Could not find artifact");
+        events.requestFailed(null, ErrorCause.OTHER, "Failed");
+    }
+
+    /**
+     * The JFR events are only compiled on Java 11 or later.
+     */
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class.forName("de.qaware.maven.plugin.offline.JfrResolutionEvents");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Shares entries between views with equal repositories and keeps views with different repositories apart.
+ */
+public class ScopedRepositoryCacheTest {
+
+    private static final RemoteRepository CENTRAL = new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build();
+    private static final RemoteRepository PLUGINS = new RemoteRepository.Builder("plugins", "default", "https://plugins.example.org/").build();
+
+    private final BoundedRepositoryCache backingCache = new BoundedRepositoryCache(1000);
+
+    @Test
+    public void sharesEntriesBetweenViewsWithEqualRepositories() {
+        ScopedRepositoryCache projectCache = new ScopedRepositoryCache(backingCache, Collections.singletonList(CENTRAL));
+        ScopedRepositoryCache pluginCache = new ScopedRepositoryCache(backingCache,
+                Collections.singletonList(new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build()));
+
+        projectCache.put(null, "pool", "pooled");
+        projectCache.put(null, 1, "model");
+
+        assertEquals("pooled", pluginCache.get(null, "pool"));
+        assertEquals("model", pluginCache.get(null, 1));
+    }
+
+    @Test
+    public void keepsViewsWithDifferentRepositoriesApart() {
+        List<RemoteRepository> projectRepositories = Collections.singletonList(CENTRAL);
+        ScopedRepositoryCache projectCache = new ScopedRepositoryCache(backingCache, projectRepositories);
+        ScopedRepositoryCache pluginCache = new ScopedRepositoryCache(backingCache, Arrays.asList(CENTRAL, PLUGINS));
+
+        projectCache.put(null, "pool", "project pool");
+        projectCache.put(null, 1, "project model");
+        pluginCache.put(null, 1, "plugin model");
+
+        assertNull(pluginCache.get(null, "pool"));
+        assertEquals("project model", projectCache.get(null, 1));
+        assertEquals("plugin model", pluginCache.get(null, 1));
+    }
+
+    @Test
+    public void isNotAffectedByLaterChangesOfTheRepositoryList() {
+        List<RemoteRepository> repositories = new ArrayList<>(Collections.singletonList(CENTRAL));
+        ScopedRepositoryCache cache = new ScopedRepositoryCache(backingCache, repositories);
+        cache.put(null, 1, "model");
+
+        repositories.add(PLUGINS);
+
+        assertEquals("model", cache.get(null, 1));
+        assertNull(new ScopedRepositoryCache(backingCache, repositories).get(null, 1));
+    }
+}
@@ -0,0 +1,149 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Selects the files served by the serve-repository goal from a local repository and serves them with a {@link RepositoryServer}.
+ */
+public class ServeRepositoryMojoTest {
+
+    private static final String PARENT_POM = "<project><modelVersion>4.0.0</modelVersion><groupId>org.example</groupId>"
+            + "<artifactId>parent</artifactId><version>1</version><packaging>pom</packaging></project>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File localRepository;
+    private DependencyDownloader dependencyDownloader;
+    private final Set<ArtifactWithRepoType> artifacts = new HashSet<>();
+
+    @Before
+    public void setUp() throws IOException {
+        localRepository = temporaryFolder.newFolder("repository");
+        // Everything is present in the local repository, so the remote repository is never contacted
+        dependencyDownloader = TestDependencyDownloaders.create(localRepository, "http://127.0.0.1:1/", Collections.<String, Object>emptyMap());
+
+        write("org/example/parent/1/parent-1.pom", PARENT_POM);
+        artifacts.add(install(new DefaultArtifact("org.example:lib:1.0"), RepositoryType.MAIN, null));
+        artifacts.add(install(new DefaultArtifact("org.example:snapshot:1.0-SNAPSHOT"), RepositoryType.MAIN, null));
+        artifacts.add(install(new DefaultArtifact("org.example.plugins:example-maven-plugin:1.0"), RepositoryType.PLUGIN,
+                "<plugin><name>Example Plugin</name><goalPrefix>example</goalPrefix><mojos/></plugin>"));
+        artifacts.add(new ArtifactWithRepoType(new DefaultArtifact("org.example:missing:1.0"), RepositoryType.MAIN));
+    }
+
+    @Test
+    public void servesReleasesTheirPomClosureAndPluginMetadata() {
+        PluginRepositoryMetadata pluginMetadata = new PluginRepositoryMetadata();
+
+        Map<String, File> files = new ServeRepositoryMojo().getServedFiles(artifacts, dependencyDownloader, localRepository, pluginMetadata);
+
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "org/example/lib/1.0/lib-1.0.jar",
+                "org/example/lib/1.0/lib-1.0.pom",
+                "org/example/parent/1/parent-1.pom",
+                "org/example/plugins/example-maven-plugin/1.0/example-maven-plugin-1.0.jar",
+                "org/example/plugins/example-maven-plugin/1.0/example-maven-plugin-1.0.pom")), new TreeSet<>(files.keySet()));
+        for (Map.Entry<String, File> file : files.entrySet()) {
+            assertEquals(new File(localRepository, file.getKey()), file.getValue());
+        }
+        assertEquals(new TreeSet<>(Arrays.asList(
+                "org/example/plugins/maven-metadata.xml",
+                "org/example/plugins/example-maven-plugin/maven-metadata.xml")), new TreeSet<>(pluginMetadata.getFiles().keySet()));
+    }
+
+    @Test
+    public void servesSelectedFilesOverHttp() throws IOException, InterruptedException {
+        PluginRepositoryMetadata pluginMetadata = new PluginRepositoryMetadata();
+        Map<String, File> files = new ServeRepositoryMojo().getServedFiles(artifacts, dependencyDownloader, localRepository, pluginMetadata);
+        final RepositoryServer server = new RepositoryServer(files, pluginMetadata.getFiles(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                2, new SystemStreamLog());
+        Thread serverThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                server.serve();
+            }
+        });
+        serverThread.start();
+        try {
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+            assertEquals(200, getStatus(url + "org/example/lib/1.0/lib-1.0.jar"));
+            assertEquals(200, getStatus(url + "org/example/parent/1/parent-1.pom.sha1"));
+            assertEquals(200, getStatus(url + "org/example/plugins/maven-metadata.xml"));
+            assertEquals(404, getStatus(url + "org/example/snapshot/1.0-SNAPSHOT/snapshot-1.0-SNAPSHOT.jar"));
+            assertEquals(404, getStatus(url + "org/example/snapshot/1.0-SNAPSHOT/snapshot-1.0-SNAPSHOT.pom"));
+        } finally {
+            server.close();
+            serverThread.join(10000);
+        }
+    }
+
+    private ArtifactWithRepoType install(Artifact artifact, RepositoryType repositoryType, String pluginDescriptor) throws IOException {
+        write(artifact.getGroupId().replace('.', '/') + '/' + artifact.getArtifactId() + '/' + artifact.getVersion() + '/'
+                        + artifact.getArtifactId() + '-' + artifact.getVersion() + ".pom",
+                "<project><modelVersion>4.0.0</modelVersion><parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1</version>"
+                        + "<relativePath/></parent><groupId>" + artifact.getGroupId() + "</groupId><artifactId>" + artifact.getArtifactId()
+                        + "</artifactId><version>" + artifact.getVersion() + "</version></project>");
+        File jar = dependencyDownloader.getLocalFile(artifact);
+        Files.createDirectories(jar.getParentFile().toPath());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.closeEntry();
+            if (pluginDescriptor != null) {
+                out.putNextEntry(new ZipEntry("META-INF/maven/plugin.xml"));
+                out.write(pluginDescriptor.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return new ArtifactWithRepoType(artifact, repositoryType);
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(localRepository, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int getStatus(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            int status = connection.getResponseCode();
+            if (status == 200) {
+                try (InputStream in = connection.getInputStream()) {
+                    while (in.read() != -1) {
+                        // Drain the response, so the connection can be reused
+                    }
+                }
+            }
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.qaware.maven.plugin.offline;
+
+import org.apache.maven.artifact.handler.ArtifactHandler;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.handler.manager.ArtifactHandlerManager;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.model.building.DefaultModelBuilderFactory;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
+import org.eclipse.aether.impl.DefaultServiceLocator;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Creates {@link DependencyDownloader}s for tests that download from a single remote repository over HTTP.
+ */
+final class TestDependencyDownloaders {
+
+    private TestDependencyDownloaders() {
+        // Utility class
+    }
+
+    /**
+     * Create an initialized downloader.
+     *
+     * @param localRepository  the base directory of the local repository.
+     * @param repositoryUrl    the URL of the project and plugin repository.
+     * @param configProperties additional configuration properties of the repository session.
+     * @return the downloader.
+     */
+    static DependencyDownloader create(File localRepository, String repositoryUrl, Map<String, ?> configProperties) {
+        return create(localRepository, repositoryUrl, configProperties, Collections.<MavenProject>emptyList());
+    }
+
+    /**
+     * Create an initialized downloader for a reactor.
+     *
+     * @param localRepository  the base directory of the local repository.
+     * @param repositoryUrl    the URL of the project and plugin repository.
+     * @param configProperties additional configuration properties of the repository session.
+     * @param reactorProjects  the projects of the reactor.
+     * @return the downloader.
+     */
+    static DependencyDownloader create(File localRepository, String repositoryUrl, Map<String, ?> configProperties, List<MavenProject> reactorProjects) {
+        DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
+        locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
+        locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
+        RepositorySystem repositorySystem = locator.getService(RepositorySystem.class);
+        DependencyDownloader dependencyDownloader = new DependencyDownloader(repositorySystem, locator.getService(RemoteRepositoryManager.class),
+                new DefaultModelBuilderFactory().newInstance(), new TestArtifactHandlerManager());
+
+        DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
+        for (Map.Entry<String, ?> configProperty : configProperties.entrySet()) {
+            session.setConfigProperty(configProperty.getKey(), configProperty.getValue());
+        }
+        session.setLocalRepositoryManager(repositorySystem.newLocalRepositoryManager(session, new LocalRepository(localRepository)));
+        ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy(true, ArtifactRepositoryPolicy.UPDATE_POLICY_DAILY, ArtifactRepositoryPolicy.CHECKSUM_POLICY_IGNORE);
+        ArtifactRepository repository = new MavenArtifactRepository("remote", repositoryUrl, new DefaultRepositoryLayout(), policy, policy);
+        DefaultProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest();
+        buildingRequest.setRepositorySession(session);
+        buildingRequest.setRemoteRepositories(Collections.singletonList(repository));
+        buildingRequest.setPluginArtifactRepositories(Collections.singletonList(repository));
+        buildingRequest.setSystemProperties(new Properties());
+        buildingRequest.setUserProperties(new Properties());
+        dependencyDownloader.init(buildingRequest, reactorProjects, new SystemStreamLog());
+        return dependencyDownloader;
+    }
+
+    static class TestArtifactHandlerManager implements ArtifactHandlerManager {
+
+        @Override
+        public ArtifactHandler getArtifactHandler(String type) {
+            return new DefaultArtifactHandler(type);
+        }
+
+        @Override
+        public void addHandlers(Map<String, ArtifactHandler> handlers) {
+            // Noop
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.qaware.maven.plugin.offline;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.transfer.ArtifactNotFoundException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends the transfer events of downloads to a {@link ThroughputTransferListener}.
+ */
+public class ThroughputTransferListenerTest {
+
+    private static final String REPOSITORY_URL = "https://repo.example.org/maven2/";
+
+    private final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+    private final ThroughputTransferListener listener = new ThroughputTransferListener();
+
+    @Test
+    public void measuresLatencyWithoutQueueWaitTime() throws InterruptedException {
+        TransferResource resource = newResource("org/example/lib/1.0/lib-1.0.jar");
+        // The download waits for a free download thread
+        Thread.sleep(300);
+        listener.transferInitiated(event(resource, TransferEvent.EventType.INITIATED).build());
+        listener.transferSucceeded(event(resource, TransferEvent.EventType.SUCCEEDED).setTransferredBytes(2048).build());
+
+        ThroughputTransferListener.TransferStatistics statistics = listener.drainStatistics().get("https://repo.example.org/maven2");
+        assertEquals(2048, statistics.getBytes());
+        assertEquals(1, statistics.getSuccesses());
+        assertTrue("Latency " + statistics.getAverageLatency(), statistics.getAverageLatency() < 250);
+    }
+
+    @Test
+    public void countsThrottledRequestsButNotMissingArtifacts() {
+        TransferResource throttled = newResource("org/example/lib/1.0/lib-1.0.jar");
+        listener.transferInitiated(event(throttled, TransferEvent.EventType.INITIATED).build());
+        listener.transferFailed(event(throttled, TransferEvent.EventType.FAILED)
+                .setException(new IOException("transfer failed for " + REPOSITORY_URL + ", status: 429 Too Many Requests")).build());
+        TransferResource missing = newResource("org/example/missing/1.0/missing-1.0.jar");
+        listener.transferInitiated(event(missing, TransferEvent.EventType.INITIATED).build());
+        listener.transferFailed(event(missing, TransferEvent.EventType.FAILED)
+                .setException(new ArtifactNotFoundException(new DefaultArtifact("org.example:missing:1.0"),
+                        new RemoteRepository.Builder("central", "default", REPOSITORY_URL).build())).build());
+
+        Map<String, ThroughputTransferListener.TransferStatistics> statistics = listener.drainStatistics();
+        assertEquals(1, statistics.get("https://repo.example.org/maven2").getThrottled());
+        assertEquals(1.0, statistics.get("https://repo.example.org/maven2").getErrorRate(), 0);
+        assertTrue(listener.drainStatistics().isEmpty());
+    }
+
+    private static TransferResource newResource(String path) {
+        return new TransferResource(REPOSITORY_URL, path, null, null);
+    }
+
+    private TransferEvent.Builder event(TransferResource resource, TransferEvent.EventType type) {
+        return new TransferEvent.Builder(session, resource).setRequestType(TransferEvent.RequestType.GET).setType(type);
+    }
+}